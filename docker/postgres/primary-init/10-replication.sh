@@ -0,0 +1,3 @@
+#!/bin/sh
+# Разрешает потоковую репликацию для postgres-replica; выполняется только при инициализации пустого тома
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,147 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankRestApplication;
+import com.example.bankcards.dto.CardResponseDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.Role;
+import com.example.bankcards.entity.enums.Status;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.CardNumberMasker;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Сравнение чтения списка карт через сущности Card и через проекцию CardSummaryDto.
+ * Запуск: {@code mvn -Pbenchmark compile exec:java -Dbenchmark.main=com.example.bankcards.benchmark.CardListingBenchmark};
+ * параметры: bench.cards, bench.iterations, bench.warmup.
+ */
+public class CardListingBenchmark {
+
+    private static final String USERNAME = "bench-listing";
+    private static final int[] PAGE_SIZES = {10, 100, 1000};
+
+    private final CardRepository cardRepository;
+    private final CardService cardService;
+    private final CardNumberMasker cardNumberMasker;
+    private final TransactionTemplate readOnlyTransaction;
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private CardListingBenchmark(ConfigurableApplicationContext context) {
+        this.cardRepository = context.getBean(CardRepository.class);
+        this.cardService = context.getBean(CardService.class);
+        this.cardNumberMasker = context.getBean(CardNumberMasker.class);
+        this.readOnlyTransaction = new TransactionTemplate(context.getBean(TransactionTemplate.class).getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public static void main(String[] args) {
+        int cards = Integer.getInteger("bench.cards", 2000);
+        int iterations = Integer.getInteger("bench.iterations", 200);
+        int warmup = Integer.getInteger("bench.warmup", 50);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BankRestApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(TransferContentionBenchmark.withDefaults(args))) {
+
+            UserRepository userRepository = context.getBean(UserRepository.class);
+            userRepository.findByUsername(USERNAME).ifPresent(userRepository::delete);
+            User user = userRepository.save(User.builder()
+                    .username(USERNAME)
+                    .password("-")
+                    .role(Role.ROLE_USER)
+                    .build());
+
+            CardListingBenchmark benchmark = new CardListingBenchmark(context);
+            benchmark.seedCards(user, cards);
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    new UserPrincipal(USERNAME, user.getId(), Role.ROLE_USER),
+                    null, List.of(new SimpleGrantedAuthority(Role.ROLE_USER.name()))));
+
+            System.out.printf("%-10s %6s %10s %10s %10s %14s%n",
+                    "path", "size", "avg ms", "p50 ms", "p99 ms", "alloc KB/op");
+            for (int size : PAGE_SIZES) {
+                Pageable pageable = PageRequest.of(0, size, Sort.by("id"));
+                benchmark.run("entity", size, warmup, iterations, () -> benchmark.entityPage(pageable));
+                benchmark.run("projection", size, warmup, iterations, () -> benchmark.cardService.getUserCards(pageable));
+            }
+
+            SecurityContextHolder.clearContext();
+            benchmark.cardRepository.deleteAll(benchmark.cardRepository.findAllByUserUsername(USERNAME, Pageable.unpaged()));
+            userRepository.delete(user);
+        }
+    }
+
+    private void seedCards(User user, int count) {
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            cards.add(Card.builder()
+                    .cardNumber(String.format("8888%012d", i))
+                    .ownerName(USERNAME)
+                    .expirationDate(LocalDate.now().plusYears(3))
+                    .status(Status.ACTIVE)
+                    .balance(BigDecimal.TEN)
+                    .user(user)
+                    .build());
+        }
+        cardRepository.saveAll(cards);
+    }
+
+    // Прежний путь: сущности с join на users по username и поштучное преобразование в DTO
+    private Page<CardResponseDto> entityPage(Pageable pageable) {
+        return readOnlyTransaction.execute(status -> cardRepository.findAllByUserUsername(USERNAME, pageable)
+                .map(card -> {
+                    CardResponseDto dto = new CardResponseDto();
+                    dto.setId(card.getId());
+                    dto.setMaskedNumber(cardNumberMasker.maskCardNumber(card.getCardNumber()));
+                    dto.setOwnerName(card.getOwnerName());
+                    dto.setBalance(card.getBalance());
+                    dto.setStatus(card.getStatus());
+                    dto.setExpirationDate(card.getExpirationDate());
+                    return dto;
+                }));
+    }
+
+    private void run(String path, int size, int warmup, int iterations, Supplier<Page<CardResponseDto>> page) {
+        for (int i = 0; i < warmup; i++) {
+            page.get();
+        }
+        long[] latencies = new long[iterations];
+        long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            long begin = System.nanoTime();
+            page.get();
+            latencies[i] = System.nanoTime() - begin;
+        }
+        long allocated = threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        Arrays.sort(latencies);
+        System.out.printf("%-10s %6d %10.3f %10.3f %10.3f %14.1f%n",
+                path, size,
+                Arrays.stream(latencies).average().orElse(0) / 1e6,
+                latencies[iterations / 2] / 1e6,
+                latencies[(int) Math.ceil(0.99 * iterations) - 1] / 1e6,
+                allocated / 1024.0 / iterations);
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankRestApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный прогон всего HTTP-стека без внешних сервисов: приложение поднимается на случайном порту
+ * поверх H2 в режиме PostgreSQL с применённым changelog Liquibase. Виртуальные клиенты логинятся и гоняют
+ * смесь /api/cards/my, /api/cards/{id} и /api/cards/transfer; в конце сверяется сумма всех балансов.
+ * Запуск: {@code mvn -Pbenchmark compile exec:java -Dbenchmark.main=com.example.bankcards.benchmark.LoadTestHarness};
+ * параметры: load.users, load.cardsPerUser, load.clients, load.duration, load.mix (my:50,card:30,transfer:20),
+ * load.maxErrorRate (допустимая доля ответов 5xx и ошибок ввода-вывода в процентах, по умолчанию 1).
+ * Прогон завершается исключением и ненулевым кодом выхода, если суммы балансов до и после не совпали
+ * или доля ошибок выше порога; 4xx не считаются ошибками: отказ перевода из-за нехватки средств - штатный ответ.
+ * Чтобы прогнать против настоящего Postgres, передайте --spring.datasource.* через -Dexec.args.
+ */
+public class LoadTestHarness {
+
+    private static final String PASSWORD = "load-test";
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    private static final Map<String, String> H2_DEFAULTS = Map.of(
+            "server.port", "0",
+            "spring.datasource.url", "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;LOCK_TIMEOUT=10000",
+            "spring.datasource.driver-class-name", "org.h2.Driver",
+            "spring.datasource.username", "sa",
+            "spring.datasource.password", "",
+            "spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+            "spring.jpa.show-sql", "false",
+            "tracing.jfr.enabled", "false",
+            // Все виртуальные клиенты приходят с одного IP и упёрлись бы в лимит логина
+            "rate-limit.enabled", "false"
+    );
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final String baseUrl;
+
+    private LoadTestHarness(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("load.users", 50);
+        int cardsPerUser = Integer.getInteger("load.cardsPerUser", 4);
+        int clients = Integer.getInteger("load.clients", 32);
+        Duration duration = Duration.parse("PT" + System.getProperty("load.duration", "30s").toUpperCase());
+        Map<String, Integer> mix = parseMix(System.getProperty("load.mix", "my:50,card:30,transfer:20"));
+        double maxErrorRate = Double.parseDouble(System.getProperty("load.maxErrorRate", "1"));
+
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                new SpringApplicationBuilder(BankRestApplication.class).run(withDefaults(args))) {
+
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+            Map<String, List<Long>> cardsByUser = seed(jdbcTemplate, passwordHash, users, cardsPerUser);
+            BigDecimal totalBefore = totalBalance(jdbcTemplate);
+
+            LoadTestHarness harness = new LoadTestHarness("http://localhost:" + context.getWebServer().getPort());
+            System.out.printf("users=%d cards=%d clients=%d duration=%s mix=%s%n",
+                    users, users * cardsPerUser, clients, duration, mix);
+            long elapsed = harness.run(cardsByUser, clients, duration, mix);
+            harness.report(elapsed);
+
+            // Режим LEDGER оставляет зачисления в журнале: totalBalance учитывает и их, и полосы горячих карт
+            BigDecimal totalAfter = totalBalance(jdbcTemplate);
+            boolean conserved = totalBefore.compareTo(totalAfter) == 0;
+            System.out.printf("balance total before=%s after=%s %s%n", totalBefore, totalAfter,
+                    conserved ? "OK" : "MISMATCH");
+            double errorRate = harness.errorRate();
+            System.out.printf("error rate=%.2f%% threshold=%.2f%%%n", errorRate, maxErrorRate);
+
+            if (!conserved) {
+                throw new IllegalStateException("Balance total changed: before=" + totalBefore + " after=" + totalAfter);
+            }
+            if (errorRate > maxErrorRate) {
+                throw new IllegalStateException(String.format(
+                        "Error rate %.2f%% exceeds load.maxErrorRate=%.2f%%", errorRate, maxErrorRate));
+            }
+        }
+    }
+
+    // Значения по умолчанию добавляются, только если их не передали явно: повтор ключа Spring склеил бы через запятую
+    private static String[] withDefaults(String[] args) {
+        List<String> result = new ArrayList<>(Arrays.asList(args));
+        H2_DEFAULTS.forEach((key, value) -> {
+            if (Arrays.stream(args).noneMatch(arg -> arg.startsWith("--" + key + "="))) {
+                result.add("--" + key + "=" + value);
+            }
+        });
+        return result.toArray(String[]::new);
+    }
+
+    private static Map<String, List<Long>> seed(JdbcTemplate jdbcTemplate, String passwordHash, int users, int cardsPerUser) {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        List<Object[]> userRows = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            userRows.add(new Object[]{"load-" + runId + "-" + u, passwordHash, "ROLE_USER"});
+        }
+        jdbcTemplate.batchUpdate("insert into users (username, password, role) values (?, ?, ?)", userRows);
+
+        Map<String, Long> userIds = new LinkedHashMap<>();
+        jdbcTemplate.query("select id, username from users where username like ? order by id",
+                rs -> {
+                    userIds.put(rs.getString("username"), rs.getLong("id"));
+                },
+                "load-" + runId + "-%");
+
+        List<Object[]> cardRows = new ArrayList<>();
+        // Префикс номера из времени запуска, чтобы повторный прогон против той же базы не упёрся в unique
+        long sequence = (System.currentTimeMillis() % 1_000_000) * 1_000_000_000L;
+        for (Map.Entry<String, Long> user : userIds.entrySet()) {
+            for (int c = 0; c < cardsPerUser; c++) {
+                cardRows.add(new Object[]{String.format("7%015d", sequence++), user.getKey(),
+                        LocalDate.now().plusYears(3), "ACTIVE", INITIAL_BALANCE, user.getValue()});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into cards (card_number, owner_name, expiration_date, status, balance, user_id) " +
+                "values (?, ?, ?, ?, ?, ?)", cardRows);
+
+        Map<String, List<Long>> cardsByUser = new LinkedHashMap<>();
+        jdbcTemplate.query("select c.id, u.username from cards c join users u on u.id = c.user_id " +
+                        "where u.username like ? order by c.id",
+                rs -> {
+                    cardsByUser.computeIfAbsent(rs.getString("username"), name -> new ArrayList<>()).add(rs.getLong("id"));
+                },
+                "load-" + runId + "-%");
+        return cardsByUser;
+    }
+
+    private static BigDecimal totalBalance(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject(
+                "select (select coalesce(sum(balance), 0) from cards) " +
+                        "+ (select coalesce(sum(balance), 0) from card_balance_stripes) " +
+                        "+ (select coalesce(sum(amount), 0) from card_transactions where settled = false)",
+                BigDecimal.class);
+    }
+
+    private long run(Map<String, List<Long>> cardsByUser, int clients, Duration duration, Map<String, Integer> mix)
+            throws Exception {
+        List<String> usernames = new ArrayList<>(cardsByUser.keySet());
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        for (int client = 0; client < clients; client++) {
+            String username = usernames.get(client % usernames.size());
+            List<Long> cards = cardsByUser.get(username);
+            futures.add(pool.submit(() -> {
+                String token = login(username);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    if (token == null) {
+                        token = login(username);
+                        continue;
+                    }
+                    int pick = random.nextInt(totalWeight);
+                    String action = null;
+                    for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+                        pick -= entry.getValue();
+                        if (pick < 0) {
+                            action = entry.getKey();
+                            break;
+                        }
+                    }
+                    Long card = cards.get(random.nextInt(cards.size()));
+                    switch (action) {
+                        case "my" -> call("GET /api/cards/my", get("/api/cards/my?size=10", token));
+                        case "card" -> call("GET /api/cards/{id}", get("/api/cards/" + card, token));
+                        case "transfer" -> {
+                            Long target = cards.get((cards.indexOf(card) + 1 + random.nextInt(cards.size() - 1)) % cards.size());
+                            String body = String.format("{\"fromCardId\":%d,\"toCardId\":%d,\"amount\":%d}",
+                                    card, target, 1 + random.nextInt(50));
+                            call("POST /api/cards/transfer", post("/api/cards/transfer", body, token));
+                        }
+                        default -> throw new IllegalArgumentException("Unknown mix entry: " + action);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - started;
+        pool.shutdown();
+        return elapsed;
+    }
+
+    private String login(String username) {
+        String body = String.format("{\"username\":\"%s\",\"password\":\"%s\"}", username, PASSWORD);
+        HttpResponse<String> response = call("POST /api/auth/login", post("/api/auth/login", body, null));
+        if (response == null || response.statusCode() != 200) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(response.body()).get("token").asText();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String body, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpResponse<String> call(String endpoint, HttpRequest request) {
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, name -> new EndpointStats());
+        long begin = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            endpointStats.record(System.nanoTime() - begin, response.statusCode());
+            return response;
+        } catch (Exception e) {
+            endpointStats.record(System.nanoTime() - begin, -1);
+            return null;
+        }
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%-24s %8s %9s %9s %9s %9s %9s %7s %7s %7s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "4xx %", "5xx %", "io %");
+        stats.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            EndpointStats s = entry.getValue();
+            long[] latencies = s.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            long count = latencies.length;
+            System.out.printf("%-24s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %7.2f %7.2f %7.2f%n",
+                    entry.getKey(), count, count / seconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                    count == 0 ? 0 : latencies[latencies.length - 1] / 1e6,
+                    100.0 * s.clientErrors.get() / Math.max(1, count),
+                    100.0 * s.serverErrors.get() / Math.max(1, count),
+                    100.0 * s.ioErrors.get() / Math.max(1, count));
+        });
+    }
+
+    // Доля ответов 5xx и ошибок ввода-вывода по всем эндпоинтам, в процентах
+    private double errorRate() {
+        long requests = 0;
+        long errors = 0;
+        for (EndpointStats s : stats.values()) {
+            requests += s.latencies.size();
+            errors += s.serverErrors.get() + s.ioErrors.get();
+        }
+        return 100.0 * errors / Math.max(1, requests);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split(":");
+            mix.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+
+    private static final class EndpointStats {
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicLong clientErrors = new AtomicLong();
+        private final AtomicLong serverErrors = new AtomicLong();
+        private final AtomicLong ioErrors = new AtomicLong();
+
+        void record(long nanos, int status) {
+            latencies.add(nanos);
+            if (status < 0) {
+                ioErrors.incrementAndGet();
+            } else if (status >= 500) {
+                serverErrors.incrementAndGet();
+            } else if (status >= 400) {
+                clientErrors.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankRestApplication;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.Role;
+import com.example.bankcards.entity.enums.Status;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.TransferNotAllowedException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.HotCardRegistry;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.StripedBalanceService;
+import com.example.bankcards.service.transfer.TransferEngine;
+import com.example.bankcards.service.transfer.TransferMode;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Многопоточный бенчмарк режимов перевода против настроенной в application.yml базы.
+ * Запуск: {@code mvn -Pbenchmark compile exec:java}; параметры передаются через -D
+ * (bench.threads, bench.ops, bench.hotCards, bench.coldCards).
+ */
+public class TransferContentionBenchmark {
+
+    private static final String USERNAME = "bench-transfer";
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    private final TransferEngine transferEngine;
+    private final CardRepository cardRepository;
+    private final LedgerService ledgerService;
+    private final StripedBalanceService stripedBalanceService;
+    private final HotCardRegistry hotCardRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int threads;
+    private final int opsPerThread;
+
+    private TransferContentionBenchmark(ConfigurableApplicationContext context, int threads, int opsPerThread) {
+        this.transferEngine = context.getBean(TransferEngine.class);
+        this.cardRepository = context.getBean(CardRepository.class);
+        this.ledgerService = context.getBean(LedgerService.class);
+        this.stripedBalanceService = context.getBean(StripedBalanceService.class);
+        this.hotCardRegistry = context.getBean(HotCardRegistry.class);
+        this.transactionTemplate = context.getBean(TransactionTemplate.class);
+        this.threads = threads;
+        this.opsPerThread = opsPerThread;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Integer.getInteger("bench.threads", 16);
+        int ops = Integer.getInteger("bench.ops", 500);
+        int hotCards = Integer.getInteger("bench.hotCards", 2);
+        int coldCards = Integer.getInteger("bench.coldCards", 200);
+        int stripes = Integer.getInteger("bench.stripes", 8);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BankRestApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(withDefaults(args))) {
+
+            UserRepository userRepository = context.getBean(UserRepository.class);
+            userRepository.findByUsername(USERNAME).ifPresent(userRepository::delete);
+            User user = userRepository.save(User.builder()
+                    .username(USERNAME)
+                    .password("-")
+                    .role(Role.ROLE_USER)
+                    .build());
+
+            TransferContentionBenchmark benchmark = new TransferContentionBenchmark(context, threads, ops);
+            List<Long> hot = benchmark.seedCards(user, hotCards, 0);
+            List<Long> cold = benchmark.seedCards(user, coldCards, hotCards);
+
+            System.out.printf("%-12s %-6s %10s %10s %10s %10s %9s %9s %s%n",
+                    "mode", "set", "ops/s", "p50 ms", "p99 ms", "max ms", "rejected", "failed", "balance");
+            for (TransferMode mode : TransferMode.values()) {
+                benchmark.run(mode, "hot", hot);
+                benchmark.run(mode, "cold", cold);
+            }
+
+            // Горячие карты с полосами: перевод идёт через StripedCardTransfer независимо от режима
+            benchmark.restripe(hot, stripes);
+            benchmark.run(TransferMode.PESSIMISTIC, "hot/" + stripes, hot);
+            benchmark.restripe(hot, 0);
+
+            userRepository.delete(user);
+        }
+    }
+
+    // Аргументы командной строки перекрывают application.yml, в отличие от SpringApplicationBuilder.properties
+    static String[] withDefaults(String[] args) {
+        String[] result = Arrays.copyOf(args, args.length + 1);
+        result[args.length] = "--spring.jpa.show-sql=false";
+        return result;
+    }
+
+    private List<Long> seedCards(User user, int count, int offset) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Card card = cardRepository.save(Card.builder()
+                    .cardNumber(String.format("9999%012d", offset + i))
+                    .ownerName(USERNAME)
+                    .expirationDate(LocalDate.now().plusYears(3))
+                    .status(Status.ACTIVE)
+                    .balance(INITIAL_BALANCE)
+                    .user(user)
+                    .build());
+            ids.add(card.getId());
+        }
+        return ids;
+    }
+
+    private void restripe(List<Long> cardIds, int stripes) {
+        transactionTemplate.executeWithoutResult(status -> cardIds.forEach(id -> {
+            Card card = cardRepository.findByIdForUpdate(id).orElseThrow();
+            stripedBalanceService.restripe(card, stripes);
+        }));
+        cardIds.forEach(id -> hotCardRegistry.update(id, stripes > 0));
+    }
+
+    private void run(TransferMode mode, String set, List<Long> cardIds) throws Exception {
+        // Полосы при сбросе не трогаем: в начале прогона они пустые после restripe
+        List<Card> cards = cardRepository.findAllById(cardIds);
+        cards.forEach(card -> card.setBalance(INITIAL_BALANCE));
+        cardRepository.saveAll(cards);
+        BigDecimal expectedTotal = INITIAL_BALANCE.multiply(BigDecimal.valueOf(cardIds.size()));
+
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        long started = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                long[] latencies = new long[opsPerThread];
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < opsPerThread; i++) {
+                    // Направление случайное, так что встречные A→B и B→A идут одновременно
+                    int from = random.nextInt(cardIds.size());
+                    int to = (from + 1 + random.nextInt(cardIds.size() - 1)) % cardIds.size();
+
+                    TransferRequestDto request = new TransferRequestDto();
+                    request.setFromCardId(cardIds.get(from));
+                    request.setToCardId(cardIds.get(to));
+                    request.setAmount(AMOUNT);
+
+                    long begin = System.nanoTime();
+                    try {
+                        transferEngine.transfer(request, USERNAME, mode);
+                    } catch (InsufficientFundsException | TransferNotAllowedException e) {
+                        rejected.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return latencies;
+            }));
+        }
+
+        long[] all = new long[threads * opsPerThread];
+        int position = 0;
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            System.arraycopy(latencies, 0, all, position, latencies.length);
+            position += latencies.length;
+        }
+        long elapsed = System.nanoTime() - started;
+        pool.shutdown();
+
+        Arrays.sort(all);
+        // Режим LEDGER оставляет зачисления в журнале, переносим их в cards.balance перед сверкой
+        ledgerService.settlePending();
+        BigDecimal total = cardRepository.findAllById(cardIds).stream()
+                .map(Card::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .add(stripedBalanceService.totals(cardIds).values().stream()
+                        .reduce(BigDecimal.ZERO, BigDecimal::add));
+        String balance = total.compareTo(expectedTotal) == 0 ? "OK" : "LOST " + expectedTotal.subtract(total);
+
+        System.out.printf("%-12s %-6s %10.0f %10.2f %10.2f %10.2f %9d %9d %s%n",
+                mode, set,
+                all.length / (elapsed / 1e9),
+                percentile(all, 0.50), percentile(all, 0.99), all[all.length - 1] / 1e6,
+                rejected.get(), failed.get(), balance);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.bankcards.benchmark.jmh;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+// Сборка сервисов без Spring-контекста: значения @Value и зависимости проставляются рефлексией
+final class Beans {
+
+    private Beans() {
+    }
+
+    static void setField(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    static Object invoke(Object target, String name, Object... args) throws ReflectiveOperationException {
+        for (Method method : target.getClass().getDeclaredMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == args.length) {
+                method.setAccessible(true);
+                return method.invoke(target, args);
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    // Зависимости, которых нет среди переданных, остаются null: хот-пасы бенчмарков их не трогают
+    @SuppressWarnings("unchecked")
+    static <T> T construct(Class<T> type, Object... dependencies) throws ReflectiveOperationException {
+        Constructor<?> constructor = type.getDeclaredConstructors()[0];
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        Object[] args = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            for (Object dependency : dependencies) {
+                if (parameterTypes[i].isInstance(dependency)) {
+                    args[i] = dependency;
+                }
+            }
+        }
+        constructor.setAccessible(true);
+        return (T) constructor.newInstance(args);
+    }
+}
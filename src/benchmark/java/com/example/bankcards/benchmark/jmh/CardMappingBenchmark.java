@@ -0,0 +1,113 @@
+package com.example.bankcards.benchmark.jmh;
+
+import com.example.bankcards.dto.CardResponseDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.enums.Status;
+import com.example.bankcards.service.CardServiceImpl;
+import com.example.bankcards.util.CardNumberMasker;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardMappingBenchmark {
+
+    private CardNumberMasker cardNumberMasker;
+    private MethodHandle convertToDto;
+    private ObjectMapper objectMapper;
+    private Card card;
+
+    // Размер страницы влияет только на сериализацию, поэтому вынесен в отдельное состояние
+    @State(Scope.Benchmark)
+    public static class PageState {
+
+        @Param({"10", "100", "1000"})
+        private int pageSize;
+
+        private Page<CardResponseDto> page;
+
+        @Setup
+        public void setUp(CardMappingBenchmark benchmark) {
+            List<CardResponseDto> content = new ArrayList<>(pageSize);
+            for (int i = 0; i < pageSize; i++) {
+                content.add(benchmark.convert(card(i)));
+            }
+            page = new PageImpl<>(content, PageRequest.of(0, pageSize), 1_000_000);
+        }
+    }
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        cardNumberMasker = new CardNumberMasker();
+        CardServiceImpl cardService = Beans.construct(CardServiceImpl.class, cardNumberMasker);
+        convertToDto = MethodHandles.privateLookupIn(CardServiceImpl.class, MethodHandles.lookup())
+                .findVirtual(CardServiceImpl.class, "convertToDto", MethodType.methodType(CardResponseDto.class, Card.class))
+                .bindTo(cardService);
+        // Те же настройки, что Spring Boot применяет к ObjectMapper для HTTP-ответов
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        card = card(1);
+    }
+
+    @Benchmark
+    public String maskCardNumber() {
+        return cardNumberMasker.maskCardNumber(card.getCardNumber());
+    }
+
+    @Benchmark
+    public CardResponseDto convertToDto() {
+        return convert(card);
+    }
+
+    @Benchmark
+    public String serializePage(PageState state) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(state.page);
+    }
+
+    private CardResponseDto convert(Card source) {
+        try {
+            return (CardResponseDto) convertToDto.invokeExact(source);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Card card(int index) {
+        return Card.builder()
+                .id((long) index)
+                .cardNumber(String.format("4000%012d", index))
+                .ownerName("Benchmark Owner")
+                .expirationDate(LocalDate.of(2030, 1, 1))
+                .status(Status.ACTIVE)
+                .balance(new BigDecimal("1234.56"))
+                .build();
+    }
+}
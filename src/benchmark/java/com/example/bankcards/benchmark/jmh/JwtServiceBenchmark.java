@@ -0,0 +1,57 @@
+package com.example.bankcards.benchmark.jmh;
+
+import com.example.bankcards.config.JwtServiceImpl;
+import com.example.bankcards.config.TokenClaims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private JwtServiceImpl jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        jwtService = new JwtServiceImpl();
+        Beans.setField(jwtService, "secret", "benchmarkSecretKeyThatIsLongEnoughForHmacSha256Algorithm");
+        Beans.setField(jwtService, "expiration", 86_400_000L);
+        Beans.invoke(jwtService, "init");
+        token = jwtService.generateToken("bench-user", "ROLE_USER", 42L);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("bench-user", "ROLE_USER", 42L);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtService.validateToken(token);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public TokenClaims parseToken() {
+        return jwtService.parseToken(token);
+    }
+}
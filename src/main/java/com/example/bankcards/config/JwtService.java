@@ -6,4 +6,5 @@ public interface JwtService {
     String extractUsername(String token);
     String extractRole(String token);
     Long extractUserId(String token);
-}
\ No newline at end of file
+    TokenClaims parseToken(String token);
+}
@@ -0,0 +1,42 @@
+package com.example.bankcards.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Пользователь, только что сделавший перевод, в течение окна читает с primary, а не с отстающей реплики
+@Component
+public class ReadYourWritesTracker {
+
+    private final boolean enabled;
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(@Value("${replica-routing.enabled:false}") boolean enabled,
+                                 @Value("${replica-routing.read-your-writes-window:5s}") Duration window,
+                                 @Value("${replica-routing.max-tracked-users:100000}") long maxTrackedUsers) {
+        this.enabled = enabled && !window.isZero();
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maxTrackedUsers)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void markWrite(String username) {
+        if (enabled) {
+            recentWriters.put(username, Boolean.TRUE);
+        }
+    }
+
+    public boolean isCurrentUserPinned() {
+        if (!enabled) {
+            return false;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && recentWriters.getIfPresent(authentication.getName()) != null;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Маршрутизация read-only транзакций на реплики. LazyConnectionDataSourceProxy откладывает получение соединения
+ * до первого запроса, поэтому к этому моменту уже известен флаг readOnly, выставленный @Transactional(readOnly = true),
+ * и соединение берётся из пула реплик; остальные транзакции и Liquibase работают с primary из spring.datasource.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "replica-routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+public class ReplicaRoutingConfig {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private ReplicaPoolDataSource replicaPool;
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties,
+                                 ObjectProvider<JdbcConnectionDetails> connectionDetails,
+                                 ReplicaRoutingProperties properties,
+                                 ReadYourWritesTracker readYourWritesTracker,
+                                 MeterRegistry meterRegistry) {
+        if (properties.replicas().isEmpty()) {
+            throw new IllegalStateException("replica-routing.enabled requires at least one replica-routing.replicas entry");
+        }
+
+        // При docker compose адрес primary приходит из JdbcConnectionDetails, а не из spring.datasource.url
+        DataSourceBuilder<HikariDataSource> primaryBuilder = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class);
+        JdbcConnectionDetails details = connectionDetails.getIfAvailable();
+        if (details != null) {
+            primaryBuilder.url(details.getJdbcUrl())
+                    .username(details.getUsername())
+                    .password(details.getPassword())
+                    .driverClassName(details.getDriverClassName());
+        }
+        HikariDataSource primary = primaryBuilder.build();
+        primary.setPoolName("primary");
+        pools.add(primary);
+
+        List<ReplicaPoolDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.replicas().size(); i++) {
+            ReplicaRoutingProperties.Replica replica = properties.replicas().get(i);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.url())
+                    .username(replica.username() != null ? replica.username() : primary.getUsername())
+                    .password(replica.password() != null ? replica.password() : primary.getPassword())
+                    .build();
+            pool.setPoolName("replica-" + (i + 1));
+            pool.setMaximumPoolSize(properties.maxPoolSize());
+            pool.setConnectionTimeout(properties.connectionTimeout().toMillis());
+            // Недоступная при старте реплика не должна мешать запуску: её отсеет проверка здоровья
+            pool.setInitializationFailTimeout(-1);
+            pool.setReadOnly(true);
+            pools.add(pool);
+            replicas.add(new ReplicaPoolDataSource.Replica(pool.getPoolName(), pool));
+        }
+        replicaPool = new ReplicaPoolDataSource(primary, replicas, readYourWritesTracker, meterRegistry);
+
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+        routing.setReadOnlyDataSource(replicaPool);
+        return routing;
+    }
+
+    @Scheduled(fixedDelayString = "${replica-routing.health-check-interval:5s}")
+    public void checkReplicas() {
+        if (replicaPool != null) {
+            replicaPool.checkHealth();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
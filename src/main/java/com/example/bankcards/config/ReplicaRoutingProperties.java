@@ -0,0 +1,19 @@
+package com.example.bankcards.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+// Реплики для read-only транзакций; запись и чтение сразу после перевода идут в основной datasource
+@ConfigurationProperties(prefix = "replica-routing")
+public record ReplicaRoutingProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("2s") Duration connectionTimeout,
+        @DefaultValue("10") int maxPoolSize,
+        @DefaultValue List<Replica> replicas) {
+
+    public record Replica(String url, String username, String password) {
+    }
+}
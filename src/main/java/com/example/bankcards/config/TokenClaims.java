@@ -0,0 +1,6 @@
+package com.example.bankcards.config;
+
+import java.time.Instant;
+
+public record TokenClaims(String username, String role, Long userId, Instant expiresAt, String tokenId) {
+}
@@ -1,20 +1,45 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BatchTransferRequestDto;
+import com.example.bankcards.dto.BatchTransferResultDto;
+import com.example.bankcards.dto.CardIssueRequestDto;
+import com.example.bankcards.dto.CardIssueResultDto;
 import com.example.bankcards.dto.CardRequestDto;
 import com.example.bankcards.dto.CardResponseDto;
+import com.example.bankcards.dto.CardStatsDto;
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.dto.CursorPageDto;
 import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.dto.VersionedDto;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.CardStatsService;
+import com.example.bankcards.service.bulk.CardExportService;
+import com.example.bankcards.service.bulk.CardImportService;
+import com.example.bankcards.service.bulk.CardIssuanceService;
+import com.example.bankcards.service.bulk.BulkFormat;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/cards")
@@ -23,6 +48,10 @@ import org.springframework.web.bind.annotation.*;
 public class CardController {
 
     private final CardService cardService;
+    private final CardExportService cardExportService;
+    private final CardImportService cardImportService;
+    private final CardIssuanceService cardIssuanceService;
+    private final CardStatsService cardStatsService;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -33,14 +62,40 @@ public class CardController {
     }
 
     @GetMapping("/my")
-    @Operation(summary = "Get user's cards", description = "This method shows to user his own cards")
+    @Operation(summary = "Get user's cards", description = "This method shows to user his own cards. Returns an ETag and answers 304 to If-None-Match while the page is unchanged")
     public ResponseEntity<Page<CardResponseDto>> getMyCards(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "id") String sortBy) {
+            @RequestParam(defaultValue = "id") String sortBy,
+            WebRequest webRequest) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortBy).descending());
-        Page<CardResponseDto> cards = cardService.getUserCards(pageable);
+        // Опрос без изменений обходится запросом версий, без построения страницы;
+        // без If-None-Match сравнивать не с чем, и ETag считается по самой странице
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String etag = cardService.getUserCardsEtag(pageable);
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        VersionedDto<Page<CardResponseDto>> cards = cardService.getVersionedUserCards(pageable);
+        return ResponseEntity.ok().eTag(cards.etag()).body(cards.body());
+    }
+
+    @GetMapping(value = "/my/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream user's card events", description = "This method streams balance and status changes of user's own cards as Server-Sent Events. A client that falls behind is disconnected and should reconnect and reload /api/cards/my")
+    public void streamMyCardEvents(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        cardService.subscribeToMyCardEvents(request, response);
+    }
+
+    @GetMapping("/my/scroll")
+    @Operation(summary = "Scroll user's cards", description = "This method shows to user his own cards using cursor paging without count query. Pass nextCursor from the previous response as 'after'")
+    public ResponseEntity<CursorPageDto<CardResponseDto>> scrollMyCards(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy) {
+
+        CursorPageDto<CardResponseDto> cards = cardService.scrollUserCards(after, size, sortBy);
         return ResponseEntity.ok(cards);
     }
 
@@ -58,11 +113,85 @@ public class CardController {
         return ResponseEntity.ok(cards);
     }
 
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Export all cards", description = "This method streams all the cards with masked numbers as NDJSON or CSV")
+    public void exportCards(
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+
+        BulkFormat exportFormat = BulkFormat.from(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"cards." + exportFormat.getExtension() + "\"");
+        cardExportService.exportCards(exportFormat, response.getOutputStream());
+    }
+
+    @GetMapping("/admin/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get card statistics", description = "This method shows to admin card counts by status, balances, cards per user and cards expiring soon from incrementally maintained counters")
+    public ResponseEntity<CardStatsDto> getCardStats() {
+        return ResponseEntity.ok(cardStatsService.getStats());
+    }
+
+    @PostMapping("/admin/issue")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Issue cards", description = "This method issues the requested number of cards with generated Luhn-valid numbers for a user and returns a summary with the issued count and id range")
+    public ResponseEntity<CardIssueResultDto> issueCards(@RequestBody @Valid CardIssueRequestDto request) {
+        CardIssueResultDto result = cardIssuanceService.issueCards(request);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/admin/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Import cards", description = "This method imports cards from CSV or NDJSON upload in batches and streams a result for every row as NDJSON")
+    public void importCards(
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        BulkFormat importFormat = BulkFormat.from(format);
+        response.setContentType(BulkFormat.NDJSON.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        cardImportService.importCards(importFormat, request.getInputStream(), response.getOutputStream());
+    }
+
+    @GetMapping("/admin/all/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Scroll all cards", description = "This method shows to admin all the cards using cursor paging without count query. Pass nextCursor from the previous response as 'after'")
+    public ResponseEntity<CursorPageDto<CardResponseDto>> scrollAllCards(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy) {
+
+        CursorPageDto<CardResponseDto> cards = cardService.scrollAllCards(after, size, sortBy);
+        return ResponseEntity.ok(cards);
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "Get card by ID", description = "This method shows to admin any card by ID, but user can find by ID only his own card")
-    public ResponseEntity<CardResponseDto> getCard(@PathVariable Long id) {
-        CardResponseDto card = cardService.getCardById(id);
-        return ResponseEntity.ok(card);
+    @Operation(summary = "Get card by ID", description = "This method shows to admin any card by ID, but user can find by ID only his own card. Returns an ETag and answers 304 to If-None-Match while the card is unchanged")
+    public ResponseEntity<CardResponseDto> getCard(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String etag = cardService.getCardEtag(id);
+            if (etag != null && webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        VersionedDto<CardResponseDto> card = cardService.getVersionedCardById(id);
+        return ResponseEntity.ok().eTag(card.etag()).body(card.body());
+    }
+
+    @GetMapping("/{id}/transactions")
+    @Operation(summary = "Get card transactions", description = "This method shows transfer history of the card, newest first, within the [from, to) range (default: last 90 days) using cursor paging. Pass nextCursor from the previous response as 'after'")
+    public ResponseEntity<CursorPageDto<CardTransactionDto>> getCardTransactions(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+
+        CursorPageDto<CardTransactionDto> transactions = cardService.getCardTransactions(id, from, to, after, size);
+        return ResponseEntity.ok(transactions);
     }
 
     @DeleteMapping("/{id}")
@@ -76,9 +205,27 @@ public class CardController {
     @PostMapping("/transfer")
     @PreAuthorize("hasRole('USER')")
     @Operation(summary = "Transfer", description = "This method transfers money between user's own cards")
-    public ResponseEntity<Void> transfer(@RequestBody @Valid TransferRequestDto request) {
-        cardService.transferBetweenOwnCards(request);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Void> transfer(
+            @RequestBody @Valid TransferRequestDto request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+
+        if (idempotencyKey == null) {
+            cardService.transferBetweenOwnCards(request);
+            return ResponseEntity.ok().build();
+        }
+
+        boolean applied = cardService.transferBetweenOwnCards(request, idempotencyKey);
+        return ResponseEntity.ok()
+                .header("Idempotent-Replayed", String.valueOf(!applied))
+                .build();
+    }
+
+    @PostMapping("/transfer/batch")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Batch transfer", description = "This method applies many transfers between user's own cards in one transaction and returns result per item")
+    public ResponseEntity<List<BatchTransferResultDto>> transferBatch(@RequestBody @Valid BatchTransferRequestDto request) {
+        List<BatchTransferResultDto> results = cardService.transferBatch(request.getTransfers());
+        return ResponseEntity.ok(results);
     }
 
     @PatchMapping("/{id}/block")
@@ -95,4 +242,12 @@ public class CardController {
         CardResponseDto card = cardService.activateCard(id);
         return ResponseEntity.ok(card);
     }
+
+    @PatchMapping("/{id}/hot")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Hot card mode", description = "This method splits card balance into stripes so that concurrent credits do not wait on one row. stripes=0 turns it off")
+    public ResponseEntity<CardResponseDto> setHotStripes(@PathVariable Long id, @RequestParam int stripes) {
+        CardResponseDto card = cardService.setHotStripes(id, stripes);
+        return ResponseEntity.ok(card);
+    }
 }
\ No newline at end of file
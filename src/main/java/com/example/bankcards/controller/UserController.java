@@ -1,6 +1,7 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CreateUserRequestDto;
+import com.example.bankcards.dto.CursorPageDto;
 import com.example.bankcards.dto.UserResponseDto;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.service.UserService;
@@ -38,6 +39,16 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/users/scroll")
+    @Operation(summary = "Scroll users", description = "This method shows to admin all the users using cursor paging without count query. Pass nextCursor from the previous response as 'after'")
+    public ResponseEntity<CursorPageDto<UserResponseDto>> scrollUsers(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+
+        CursorPageDto<UserResponseDto> users = userService.scrollUsers(after, size);
+        return ResponseEntity.ok(users);
+    }
+
     @PostMapping("/users")
     @Operation(summary = "Create a new user", description = "This method creates a new user")
     public ResponseEntity<User> createUser(@RequestBody @Valid CreateUserRequestDto request) {
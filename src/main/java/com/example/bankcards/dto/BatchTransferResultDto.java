@@ -0,0 +1,14 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BatchTransferResultDto {
+    private int index;
+    private Long fromCardId;
+    private Long toCardId;
+    private boolean success;
+    private String error;
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class CardEventDto {
+    private Type type;
+    private Long cardId;
+    // Состояние карты после изменения; для DELETED - null
+    private CardResponseDto card;
+    private Instant occurredAt;
+
+    public enum Type {
+        BALANCE, STATUS, DELETED
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+public class CardIssueRequestDto {
+
+    @NotNull(message = "User ID is required")
+    private Long userId;
+
+    @NotBlank(message = "Owner name is required")
+    private String ownerName;
+
+    @NotNull(message = "Count is required")
+    @Positive(message = "Count must be positive")
+    private Integer count;
+
+    @Future(message = "Expiration date must be in the future")
+    private LocalDate expirationDate;
+
+    @PositiveOrZero(message = "Balance must not be negative")
+    private BigDecimal initialBalance;
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardIssueResultDto {
+    private int requested;
+    private int issued;
+    // Наименьший и наибольший id выпущенных карт; из пула последовательности, поэтому диапазон может содержать чужие карты
+    private Long firstCardId;
+    private Long lastCardId;
+    // Причина, по которой выпущено меньше карт, чем запрошено
+    private String error;
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.enums.Status;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+public class CardStatsDto {
+    private Map<Status, Long> cardsByStatus;
+    private long totalCards;
+    // Баланс с учётом полос горячих карт и ещё не сведённых проводок
+    private BigDecimal totalBalance;
+    private BigDecimal averageBalance;
+    private long users;
+    private double averageCardsPerUser;
+    private int expiringWithinDays;
+    private long expiringCards;
+    private long transfers;
+    private BigDecimal transferredAmount;
+    // Время последнего полного пересчёта
+    private Instant recomputedAt;
+}
@@ -0,0 +1,12 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.enums.Status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Строка списка карт, читаемая JPQL-проекцией без загрузки сущности Card в контекст
+public record CardSummaryDto(Long id, String cardNumber, String ownerName, BigDecimal balance,
+                             Status status, LocalDate expirationDate, int stripeCount,
+                             Long version) {
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+public class CardTransactionDto {
+    private Long id;
+    private UUID transferId;
+    // Отрицательная сумма - списание с карты, положительная - зачисление
+    private BigDecimal amount;
+    private boolean settled;
+    private Instant createdAt;
+}
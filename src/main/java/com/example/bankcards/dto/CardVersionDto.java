@@ -0,0 +1,5 @@
+package com.example.bankcards.dto;
+
+// Версия карты для проверки ETag без загрузки сущности и построения ответа
+public record CardVersionDto(Long id, Long version, int stripeCount) {
+}
@@ -0,0 +1,5 @@
+package com.example.bankcards.dto;
+
+// Тело ответа и ETag, посчитанные в одной транзакции, чтобы ETag не оказался новее тела при чтении с реплик
+public record VersionedDto<T>(T body, String etag) {
+}
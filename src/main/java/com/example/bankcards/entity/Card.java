@@ -17,8 +17,10 @@ import java.time.LocalDate;
 @Builder
 public class Card {
 
+    // Пул из 50 id на одно обращение к последовательности, чтобы Hibernate мог пакетировать вставки
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_id_seq")
+    @SequenceGenerator(name = "cards_id_seq", sequenceName = "cards_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "card_number", unique = true, nullable = false, length = 16)
@@ -37,6 +39,13 @@ public class Card {
     @Column(name = "balance", nullable = false, precision = 19, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    @Column(name = "stripe_count", nullable = false)
+    private int stripeCount;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -0,0 +1,37 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+// Строка журнала card_transactions только для чтения истории: пишет журнал LedgerService через JDBC.
+// В Postgres таблица секционирована по месяцам created_at, первичный ключ (id, created_at)
+@Entity
+@Table(name = "card_transactions")
+@Immutable
+@Getter
+@NoArgsConstructor
+public class CardTransaction {
+
+    @Id
+    private Long id;
+
+    @Column(name = "transfer_id", nullable = false)
+    private UUID transferId;
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "settled", nullable = false)
+    private boolean settled;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class CardIssuanceException extends RuntimeException {
+    public CardIssuanceException(String message) {
+        super(message);
+    }
+}
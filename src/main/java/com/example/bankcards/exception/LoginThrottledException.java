@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class LoginThrottledException extends RuntimeException {
+    public LoginThrottledException(String message) {
+        super(message);
+    }
+}
@@ -1,11 +1,27 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.CardSummaryDto;
+import com.example.bankcards.dto.CardVersionDto;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.enums.Status;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,9 +30,72 @@ public interface CardRepository extends JpaRepository<Card, Long> {
 
     Page<Card> findAll(Pageable pageable);
 
+    @Query(value = "select new com.example.bankcards.dto.CardSummaryDto(" +
+            "c.id, c.cardNumber, c.ownerName, c.balance, c.status, c.expirationDate, c.stripeCount, c.version) " +
+            "from Card c where c.user.id = :userId",
+            countQuery = "select count(c) from Card c where c.user.id = :userId")
+    Page<CardSummaryDto> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = "select new com.example.bankcards.dto.CardVersionDto(c.id, c.version, c.stripeCount) " +
+            "from Card c where c.user.id = :userId",
+            countQuery = "select count(c) from Card c where c.user.id = :userId")
+    Page<CardVersionDto> findVersionsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // userId = null - без проверки владельца (для администратора)
+    @Query("select new com.example.bankcards.dto.CardVersionDto(c.id, c.version, c.stripeCount) " +
+            "from Card c where c.id = :id and (:userId is null or c.user.id = :userId)")
+    Optional<CardVersionDto> findVersionById(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query(value = "select new com.example.bankcards.dto.CardSummaryDto(" +
+            "c.id, c.cardNumber, c.ownerName, c.balance, c.status, c.expirationDate, c.stripeCount, c.version) " +
+            "from Card c",
+            countQuery = "select count(c) from Card c")
+    Page<CardSummaryDto> findAllSummaries(Pageable pageable);
+
+    Window<CardSummaryDto> findSummariesByUserId(Long userId, ScrollPosition position, Limit limit, Sort sort);
+
+    Window<CardSummaryDto> findSummariesBy(ScrollPosition position, Limit limit, Sort sort);
+
     Optional<Card> findByCardNumber(String cardNumber);
 
     boolean existsByCardNumber(String cardNumber);
 
+    @Query("select c.cardNumber from Card c where c.cardNumber in :cardNumbers")
+    List<String> findExistingCardNumbers(@Param("cardNumbers") Collection<String> cardNumbers);
+
     Page<Card> findAllByStatus(String status, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id = :id")
+    Optional<Card> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("select c.user.id from Card c where c.id = :id")
+    Optional<Long> findOwnerId(@Param("id") Long id);
+
+    @Query("select c.stripeCount from Card c where c.id = :id")
+    Optional<Integer> findStripeCount(@Param("id") Long id);
+
+    @Query("select c.id from Card c where c.stripeCount > 0")
+    List<Long> findHotCardIds();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id in :ids " +
+            "and c.user.id in (select u.id from User u where u.username = :username) order by c.id")
+    List<Card> findOwnedByIdInForUpdate(@Param("ids") Collection<Long> ids, @Param("username") String username);
+
+    @Modifying
+    @Query("update Card c set c.balance = c.balance - :amount, c.version = c.version + 1 " +
+            "where c.id = :id and c.balance >= :amount and c.status = :status and c.expirationDate >= :today " +
+            "and c.user.id in (select u.id from User u where u.username = :username)")
+    int debitIfAvailable(@Param("id") Long id, @Param("username") String username,
+                         @Param("amount") BigDecimal amount, @Param("status") Status status,
+                         @Param("today") LocalDate today);
+
+    @Modifying
+    @Query("update Card c set c.balance = c.balance + :amount, c.version = c.version + 1 " +
+            "where c.id = :id and c.status = :status and c.expirationDate >= :today " +
+            "and c.user.id in (select u.id from User u where u.username = :username)")
+    int creditIfActive(@Param("id") Long id, @Param("username") String username,
+                       @Param("amount") BigDecimal amount, @Param("status") Status status,
+                       @Param("today") LocalDate today);
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardTransaction;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface CardTransactionRepository extends JpaRepository<CardTransaction, Long> {
+
+    // Диапазон по created_at отсекает лишние секции, индекс (card_id, created_at) есть в каждой
+    Window<CardTransaction> findByCardIdAndCreatedAtGreaterThanEqualAndCreatedAtLessThan(
+            Long cardId, Instant from, Instant to, ScrollPosition position, Limit limit, Sort sort);
+}
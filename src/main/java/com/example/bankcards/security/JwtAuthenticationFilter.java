@@ -1,11 +1,15 @@
 package com.example.bankcards.security;
 
-import com.example.bankcards.config.JwtService;
+import com.example.bankcards.config.TokenClaims;
+import com.example.bankcards.entity.enums.Role;
+import com.example.bankcards.tracing.JwtFilterEvent;
+import com.example.bankcards.tracing.RequestIds;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,13 +19,31 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
-    private final CustomUserDetailsService userDetailsService;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenDenylist tokenDenylist;
+    private final Timer cacheHitTimer;
+    private final Timer verifyTimer;
+    private final Timer revocationTimer;
+
+    public JwtAuthenticationFilter(VerifiedTokenCache tokenCache, TokenDenylist tokenDenylist, MeterRegistry meterRegistry) {
+        this.tokenCache = tokenCache;
+        this.tokenDenylist = tokenDenylist;
+        this.cacheHitTimer = stageTimer(meterRegistry, "cache-hit");
+        this.verifyTimer = stageTimer(meterRegistry, "verify");
+        this.revocationTimer = stageTimer(meterRegistry, "revocation");
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("jwt.filter")
+                .description("JWT authentication filter time by stage")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
 
     @Override
     protected void doFilterInternal(
@@ -39,13 +61,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String jwt = authHeader.substring(7);
 
+        JwtFilterEvent event = new JwtFilterEvent();
+        event.begin();
         try {
-            final String username = jwtService.extractUsername(jwt);
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Роль и userId уже лежат в подписанном токене, поэтому в БД не ходим
+                TokenClaims claims = claims(jwt);
+
+                // Отозванный токен оставляет запрос неаутентифицированным
+                boolean revoked = revocationTimer.record(() -> tokenDenylist.isRevoked(claims));
 
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                if (!revoked) {
+                    Role role = Role.valueOf(claims.role());
+                    UserDetails userDetails = new UserPrincipal(claims.username(), claims.userId(), role);
 
-                if (jwtService.validateToken(jwt)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -57,7 +86,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
         } catch (Exception e) {
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.requestId = RequestIds.current();
+            event.authenticated = SecurityContextHolder.getContext().getAuthentication() != null;
+            event.commit();
+        }
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    // Попадание в кэш и разбор с проверкой подписи учитываются отдельно: их время отличается на порядки
+    private TokenClaims claims(String jwt) {
+        long started = System.nanoTime();
+        Timer stage = cacheHitTimer;
+        try {
+            TokenClaims claims = tokenCache.cached(jwt);
+            if (claims == null) {
+                stage = verifyTimer;
+                claims = tokenCache.verify(jwt);
+            }
+            return claims;
+        } finally {
+            stage.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+}
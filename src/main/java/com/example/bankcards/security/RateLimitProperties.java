@@ -0,0 +1,19 @@
+package com.example.bankcards.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+// Правила проверяются по порядку, срабатывает первое совпавшее; запросы без правила не ограничиваются
+@ConfigurationProperties(prefix = "rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") long maxBuckets,
+        @DefaultValue("10m") Duration idleTimeout,
+        @DefaultValue List<Rule> rules) {
+
+    public record Rule(String pattern, long capacity, double refillPerSecond) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.config.TokenClaims;
+import com.example.bankcards.repository.RevokedTokenRepository;
+import com.example.bankcards.util.BloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Отозванные токены: фильтр Блума и небольшой точный кэш в памяти, таблица revoked_tokens - только при попадании в фильтр.
+// Обычный запрос с неотозванным токеном в БД не ходит.
+@Component
+public class TokenDenylist {
+
+    private static final String USER_PREFIX = "user:";
+    // Перекрытие догрузки: транзакция отзыва на другом инстансе могла закоммититься позже своего revoked_at
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long expectedTokens;
+    private final double falsePositiveRate;
+    private final Duration tokenLifetime;
+    // Точный ответ по id, уже проверенным в БД или отозванным здесь: true - отозван, false - ложное срабатывание фильтра
+    private final Cache<String, Boolean> confirmed;
+    private final Counter databaseLookups;
+
+    private volatile BloomFilter filter;
+    private volatile Instant lastRefresh = Instant.EPOCH;
+
+    public TokenDenylist(RevokedTokenRepository revokedTokenRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${security.revocation.expected-tokens:100000}") long expectedTokens,
+                         @Value("${security.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                         @Value("${security.revocation.exact-size:10000}") long exactSize,
+                         @Value("${jwt.expiration}") long expiration) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.tokenLifetime = Duration.ofMillis(expiration);
+        this.confirmed = Caffeine.newBuilder()
+                .maximumSize(exactSize)
+                .expireAfterWrite(tokenLifetime)
+                .build();
+        this.databaseLookups = Counter.builder("jwt.denylist.db-lookups").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        reload(Instant.now());
+    }
+
+    public boolean isRevoked(TokenClaims claims) {
+        return isListed(claims.tokenId()) || (claims.userId() != null && isListed(USER_PREFIX + claims.userId()));
+    }
+
+    @Transactional
+    public void revoke(String tokenId, Instant expiresAt) {
+        revokedTokenRepository.insertIfAbsent(tokenId, expiresAt, Instant.now());
+        remember(tokenId);
+    }
+
+    // Все токены удалённого пользователя: самый свежий из них истечёт не позже чем через jwt.expiration
+    @Transactional
+    public void revokeUser(Long userId) {
+        revoke(USER_PREFIX + userId, Instant.now().plus(tokenLifetime));
+    }
+
+    // Догружает отзывы, сделанные другими инстансами
+    @Scheduled(fixedDelayString = "${security.revocation.refresh-interval:30s}")
+    public void refresh() {
+        Instant startedAt = Instant.now();
+        List<String> tokenIds = revokedTokenRepository
+                .findActiveTokenIdsRevokedSince(lastRefresh.minus(REFRESH_OVERLAP), startedAt);
+        tokenIds.forEach(this::remember);
+        lastRefresh = startedAt;
+    }
+
+    // Фильтр Блума не умеет удалять, поэтому истёкшие записи убираются пересборкой с нуля
+    @Scheduled(initialDelayString = "${security.revocation.rebuild-interval:1h}",
+            fixedDelayString = "${security.revocation.rebuild-interval:1h}")
+    @Transactional
+    public void rebuild() {
+        Instant startedAt = Instant.now();
+        revokedTokenRepository.deleteExpired(startedAt);
+        reload(startedAt);
+    }
+
+    private synchronized void reload(Instant startedAt) {
+        List<String> tokenIds = revokedTokenRepository.findActiveTokenIdsRevokedSince(Instant.EPOCH, startedAt);
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, 2L * tokenIds.size()), falsePositiveRate);
+        tokenIds.forEach(tokenId -> rebuilt.put(key(tokenId)));
+        // Отзывы этого инстанса, чьи транзакции ещё не были видны запросу выше
+        confirmed.asMap().forEach((tokenId, revoked) -> {
+            if (revoked) {
+                rebuilt.put(key(tokenId));
+            }
+        });
+        filter = rebuilt;
+        lastRefresh = startedAt;
+    }
+
+    private synchronized void remember(String tokenId) {
+        filter.put(key(tokenId));
+        confirmed.put(tokenId, true);
+    }
+
+    private boolean isListed(String tokenId) {
+        if (tokenId == null || !filter.mightContain(key(tokenId))) {
+            return false;
+        }
+        return confirmed.get(tokenId, id -> {
+            databaseLookups.increment();
+            return revokedTokenRepository.existsByTokenIdAndExpiresAtAfter(id, Instant.now());
+        });
+    }
+
+    // FNV-1a: фильтр сам перемешивает ключ, здесь достаточно стабильного 64-битного отпечатка строки
+    private static long key(String tokenId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : tokenId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.enums.Role;
+import lombok.Getter;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+
+// Principal с id и ролью пользователя: собирается из claims JWT, а при логине - из БД вместе с хэшем пароля
+@Getter
+public class UserPrincipal extends User {
+
+    private final Long userId;
+    private final Role role;
+
+    public UserPrincipal(String username, Long userId, Role role) {
+        this(username, "", userId, role);
+    }
+
+    public UserPrincipal(String username, String password, Long userId, Role role) {
+        super(username, password, List.of(role));
+        this.userId = userId;
+        this.role = role;
+    }
+}
@@ -5,4 +5,5 @@ import com.example.bankcards.dto.AuthResponseDto;
 
 public interface AuthService {
     AuthResponseDto authenticate(AuthRequestDto request);
+    void logout(String token);
 }
\ No newline at end of file
@@ -2,45 +2,63 @@ package com.example.bankcards.service;
 
 import com.example.bankcards.dto.AuthRequestDto;
 import com.example.bankcards.dto.AuthResponseDto;
-import com.example.bankcards.entity.User;
-import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.config.JwtService;
+import com.example.bankcards.config.TokenClaims;
+import com.example.bankcards.security.CustomUserDetailsService;
+import com.example.bankcards.security.PasswordVerifier;
+import com.example.bankcards.security.TokenDenylist;
+import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.security.VerifiedTokenCache;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "auth.service", histogram = true)
 public class AuthServiceImpl implements AuthService {
 
-    private final UserRepository userRepository;
+    private final CustomUserDetailsService userDetailsService;
+    private final PasswordVerifier passwordVerifier;
     private final JwtService jwtService;
-    private final AuthenticationManager authenticationManager;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenDenylist tokenDenylist;
 
     @Override
     public AuthResponseDto authenticate(AuthRequestDto request) {
-        // Аутентификация через Spring Security
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getUsername(),
-                        request.getPassword()
-                )
-        );
+        // Одна загрузка пользователя: хэш для проверки пароля, id и роль для токена
+        UserPrincipal user;
+        try {
+            user = userDetailsService.loadPrincipal(request.getUsername());
+        } catch (UsernameNotFoundException e) {
+            passwordVerifier.matchDummy(request.getPassword());
+            throw new BadCredentialsException("Bad credentials");
+        }
 
-        // Поиск пользователя
-        User user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + request.getUsername()));
+        // BCrypt выполняется на ограниченном пуле, а не на потоке Tomcat
+        if (!passwordVerifier.matches(request.getPassword(), user.getPassword())) {
+            throw new BadCredentialsException("Bad credentials");
+        }
 
         // Генерация токена
         String token = jwtService.generateToken(
                 user.getUsername(),
                 user.getRole().name(),
-                user.getId()
+                user.getUserId()
         );
 
         return new AuthResponseDto(token, user.getUsername(), user.getRole());
     }
-}
\ No newline at end of file
+
+    @Override
+    public void logout(String token) {
+        TokenClaims claims = tokenCache.verify(token);
+        if (claims.tokenId() == null) {
+            throw new IllegalArgumentException("Token has no id and cannot be revoked");
+        }
+        tokenDenylist.revoke(claims.tokenId(), claims.expiresAt());
+        tokenCache.invalidate(token);
+    }
+}
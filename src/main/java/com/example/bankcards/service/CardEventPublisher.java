@@ -0,0 +1,327 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardEventDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * SSE-поток изменений карт пользователя. Подписки хранятся списками по userId; события публикуются после коммита
+ * и раскладываются по ограниченным буферам подписок, а отправку выполняет небольшой пул потоков.
+ * Простаивающее соединение не держит поток запроса (асинхронный запрос сервлета). Запись неблокирующая
+ * (WriteListener): поток пула пишет, пока сокет готов, и возвращается, а продолжает после onWritePossible,
+ * поэтому клиент, который не читает, не занимает поток отправки. Такой клиент отключается при переполнении
+ * буфера или если сокет не готов к записи дольше send-timeout, и должен переподключиться и перечитать /api/cards/my.
+ */
+@Service
+public class CardEventPublisher {
+
+    private static final Object HEARTBEAT = new Object();
+    private static final byte[] HEARTBEAT_FRAME = ":heartbeat\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Map<Long, List<Subscription>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriptionCount = new AtomicInteger();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final ExecutorService dispatcher;
+    private final ObjectMapper objectMapper;
+    private final Counter droppedSubscribers;
+    private final int bufferSize;
+    private final int maxPerUser;
+    private final Duration timeout;
+    private final Duration sendTimeout;
+
+    public CardEventPublisher(MeterRegistry meterRegistry,
+                              ObjectMapper objectMapper,
+                              @Value("${cards.events.dispatch-threads:4}") int dispatchThreads,
+                              @Value("${cards.events.buffer-size:64}") int bufferSize,
+                              @Value("${cards.events.max-per-user:5}") int maxPerUser,
+                              @Value("${cards.events.timeout:30m}") Duration timeout,
+                              @Value("${cards.events.send-timeout:10s}") Duration sendTimeout) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxPerUser = maxPerUser;
+        this.timeout = timeout;
+        this.sendTimeout = sendTimeout;
+        AtomicInteger counter = new AtomicInteger();
+        // Очередь задач ограничена числом подписок: у каждой в очереди не больше одной задачи отправки
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                task -> {
+                    Thread thread = new Thread(task, "card-events-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.dispatcher = executor;
+        this.droppedSubscribers = Counter.builder("cards.events.dropped").register(meterRegistry);
+        Gauge.builder("cards.events.subscribers", subscriptionCount, AtomicInteger::get).register(meterRegistry);
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "cards.events");
+    }
+
+    public void subscribe(Long userId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(timeout.toMillis());
+        Subscription subscription = new Subscription(userId, asyncContext, asyncContext.getResponse().getOutputStream());
+        asyncContext.addListener(subscription);
+        // Контейнер вызовет onWritePossible, когда сокет готов: первая отправка передаёт клиенту заголовки ответа.
+        // Слушатель ставится до регистрации подписки: без него isReady() недоступен
+        subscription.output.setWriteListener(subscription);
+
+        List<Subscription> userSubscriptions = subscribers.compute(userId, (id, list) -> {
+            List<Subscription> result = list != null ? list : new CopyOnWriteArrayList<>();
+            result.add(subscription);
+            return result;
+        });
+        subscriptionCount.incrementAndGet();
+        // Лишние вкладки и забытые соединения одного пользователя: закрываем самое старое
+        if (userSubscriptions.size() > maxPerUser) {
+            userSubscriptions.get(0).close();
+        }
+    }
+
+    public boolean hasSubscribers(Long userId) {
+        return subscribers.containsKey(userId);
+    }
+
+    // Поставщик событий вызывается после коммита и только если у пользователя есть подписчики
+    public void publish(Long userId, Supplier<List<CardEventDto>> events) {
+        if (!hasSubscribers(userId)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    fanOut(userId, events);
+                }
+            });
+        } else {
+            fanOut(userId, events);
+        }
+    }
+
+    // Комментарий раз в интервал не даёт прокси закрыть тихое соединение и выявляет отвалившихся клиентов
+    @Scheduled(fixedDelayString = "${cards.events.heartbeat-interval:30s}")
+    public void heartbeat() {
+        subscribers.values().forEach(list -> list.forEach(subscription -> subscription.offer(HEARTBEAT)));
+    }
+
+    // Клиент, который не забирает данные, держит сокет неготовым к записи: отключаем его через send-timeout
+    @Scheduled(fixedDelayString = "${cards.events.send-check-interval:1s}")
+    public void dropStalled() {
+        long now = System.nanoTime();
+        subscribers.values().forEach(list -> list.forEach(subscription -> {
+            long blockedSince = subscription.blockedSince;
+            if (blockedSince != 0 && now - blockedSince > sendTimeout.toNanos()) {
+                droppedSubscribers.increment();
+                subscription.close();
+            }
+        }));
+    }
+
+    // Событие приходит до остановки веб-сервера: открытые потоки иначе держали бы мягкую остановку до её таймаута
+    @EventListener(ContextClosedEvent.class)
+    public void closeSubscriptions() {
+        subscribers.values().forEach(list -> list.forEach(Subscription::close));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        closeSubscriptions();
+        dispatcher.shutdownNow();
+    }
+
+    private void fanOut(Long userId, Supplier<List<CardEventDto>> events) {
+        List<Subscription> userSubscriptions = subscribers.get(userId);
+        if (userSubscriptions == null) {
+            return;
+        }
+        List<CardEventDto> payload = events.get();
+        for (Subscription subscription : userSubscriptions) {
+            payload.forEach(subscription::offer);
+        }
+    }
+
+    private boolean unsubscribe(Subscription subscription) {
+        if (!subscription.closed.compareAndSet(false, true)) {
+            return false;
+        }
+        subscriptionCount.decrementAndGet();
+        subscribers.computeIfPresent(subscription.userId, (id, list) -> {
+            list.remove(subscription);
+            return list.isEmpty() ? null : list;
+        });
+        return true;
+    }
+
+    private byte[] encode(Object event) throws IOException {
+        if (event == HEARTBEAT) {
+            return HEARTBEAT_FRAME;
+        }
+        CardEventDto cardEvent = (CardEventDto) event;
+        String frame = "id:" + eventIds.incrementAndGet() + "\n"
+                + "event:" + cardEvent.getType().name().toLowerCase() + "\n"
+                + "data:" + objectMapper.writeValueAsString(cardEvent) + "\n\n";
+        return frame.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Вся работа с потоком ответа и complete() идут через drain, который не выполняется параллельно сам с собой
+    private final class Subscription implements WriteListener, AsyncListener {
+
+        private final Long userId;
+        private final AsyncContext asyncContext;
+        private final ServletOutputStream output;
+        private final BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicInteger drainRequests = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        // Момент, с которого сокет не готов к записи; 0, пока запись идёт
+        private volatile long blockedSince;
+        private boolean flushPending = true;
+
+        private Subscription(Long userId, AsyncContext asyncContext, ServletOutputStream output) {
+            this.userId = userId;
+            this.asyncContext = asyncContext;
+            this.output = output;
+        }
+
+        private void offer(Object event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                droppedSubscribers.increment();
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (drainRequests.getAndIncrement() == 0) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        // Запросы, пришедшие во время работы, не теряются: цикл повторяется, пока счётчик не обнулится
+        private void drain() {
+            int requests = 1;
+            do {
+                writeReady();
+                requests = drainRequests.addAndGet(-requests);
+            } while (requests != 0);
+        }
+
+        private void writeReady() {
+            try {
+                while (!closed.get()) {
+                    if (!output.isReady()) {
+                        if (blockedSince == 0) {
+                            blockedSince = System.nanoTime();
+                        }
+                        return;
+                    }
+                    blockedSince = 0;
+                    Object event = buffer.poll();
+                    if (event == null) {
+                        if (!flushPending) {
+                            return;
+                        }
+                        flushPending = false;
+                        output.flush();
+                    } else {
+                        output.write(encode(event));
+                        flushPending = true;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Соединение уже закрыто клиентом или контейнером
+                unsubscribe(this);
+            }
+            complete();
+        }
+
+        private void complete() {
+            if (completed.compareAndSet(false, true)) {
+                try {
+                    asyncContext.complete();
+                } catch (IllegalStateException e) {
+                    // Запрос уже завершён контейнером
+                }
+            }
+        }
+
+        private void close() {
+            if (unsubscribe(this)) {
+                scheduleDrain();
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            scheduleDrain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            unsubscribe(this);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            completed.set(true);
+            unsubscribe(this);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            unsubscribe(this);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
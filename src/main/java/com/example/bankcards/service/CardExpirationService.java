@@ -0,0 +1,175 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.enums.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Перевод карт с прошедшим expiration_date в EXPIRED без загрузки сущностей.
+ * Диапазон id делится на сегменты по числу потоков, каждый сегмент идёт порциями по chunk-size id;
+ * порция - короткая транзакция из одного UPDATE и сдвига чекпоинта в job_checkpoints,
+ * поэтому прерванный запуск продолжается с места остановки. Строки, заблокированные переводами,
+ * пропускаются (SKIP LOCKED), а чекпоинт останавливается на первой из них: следующая порция
+ * сегмента начинается с неё и ждёт окончания перевода обычным FOR UPDATE.
+ */
+@Service
+public class CardExpirationService {
+
+    private static final String JOB_NAME = "card-expiration";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CardStatsService cardStatsService;
+    private final int chunkSize;
+    private final int threads;
+    private final Counter expiredCards;
+
+    public CardExpirationService(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 CardStatsService cardStatsService,
+                                 @Value("${cards.expiration.chunk-size:5000}") int chunkSize,
+                                 @Value("${cards.expiration.threads:4}") int threads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cardStatsService = cardStatsService;
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+        this.expiredCards = Counter.builder("cards.expired").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${cards.expiration.cron:0 5 0 * * *}")
+    public void expireCards() {
+        LocalDate today = LocalDate.now();
+        List<Integer> segments = prepareSegments(today);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, segments.size())));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Integer segment : segments) {
+                futures.add(executor.submit(() -> processSegment(segment, today)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Card expiration run failed", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Незавершённые сегменты сегодняшнего запуска продолжаются; иначе диапазон id режется заново
+    private List<Integer> prepareSegments(LocalDate today) {
+        List<Integer> segments = transactionTemplate.execute(status -> {
+            List<Integer> pending = jdbcTemplate.queryForList(
+                    "select segment from job_checkpoints where job_name = ? and run_date = ? and next_id < end_id " +
+                    "order by segment",
+                    Integer.class, JOB_NAME, Date.valueOf(today));
+            Integer total = jdbcTemplate.queryForObject(
+                    "select count(*) from job_checkpoints where job_name = ? and run_date = ?",
+                    Integer.class, JOB_NAME, Date.valueOf(today));
+            if (total != null && total > 0) {
+                return pending;
+            }
+
+            jdbcTemplate.update("delete from job_checkpoints where job_name = ?", JOB_NAME);
+            Long minId = jdbcTemplate.queryForObject("select min(id) from cards", Long.class);
+            Long maxId = jdbcTemplate.queryForObject("select max(id) from cards", Long.class);
+            if (minId == null) {
+                return List.<Integer>of();
+            }
+            long span = maxId + 1 - minId;
+            long segmentSize = Math.max(chunkSize, (span + threads - 1) / threads);
+            List<Object[]> rows = new ArrayList<>();
+            List<Integer> created = new ArrayList<>();
+            int segment = 0;
+            for (long start = minId; start <= maxId; start += segmentSize) {
+                rows.add(new Object[]{JOB_NAME, segment, Date.valueOf(today), start, Math.min(start + segmentSize, maxId + 1)});
+                created.add(segment++);
+            }
+            jdbcTemplate.batchUpdate(
+                    "insert into job_checkpoints (job_name, segment, run_date, next_id, end_id, updated_at) " +
+                    "values (?, ?, ?, ?, ?, current_timestamp)", rows);
+            return created;
+        });
+        return segments == null ? List.of() : segments;
+    }
+
+    private void processSegment(int segment, LocalDate today) {
+        ChunkResult result = ChunkResult.MORE;
+        while (result != ChunkResult.DONE) {
+            boolean waitForLocks = result == ChunkResult.SKIPPED;
+            result = transactionTemplate.execute(status -> expireChunk(segment, today, waitForLocks));
+        }
+    }
+
+    // Блокировка строки чекпоинта не даёт двум экземплярам обработать одну порцию дважды
+    private ChunkResult expireChunk(int segment, LocalDate today, boolean waitForLocks) {
+        List<long[]> checkpoint = jdbcTemplate.query(
+                "select next_id, end_id from job_checkpoints where job_name = ? and segment = ? for update",
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)},
+                JOB_NAME, segment);
+        if (checkpoint.isEmpty() || checkpoint.get(0)[0] >= checkpoint.get(0)[1]) {
+            return ChunkResult.DONE;
+        }
+        long from = checkpoint.get(0)[0];
+        long to = Math.min(from + chunkSize, checkpoint.get(0)[1]);
+
+        // Строки блокируются по возрастанию id, как и в переводах, поэтому ожидание не приводит к взаимной блокировке
+        List<Long> ids = new ArrayList<>();
+        CardStatsDelta statsDelta = new CardStatsDelta();
+        jdbcTemplate.query(
+                "select id, status from cards where id >= ? and id < ? and status <> 'EXPIRED' and expiration_date < ? " +
+                "order by id " + (waitForLocks ? "for update" : "for update skip locked"),
+                rs -> {
+                    ids.add(rs.getLong(1));
+                    statsDelta.statusChanged(Status.valueOf(rs.getString(2)), Status.EXPIRED);
+                },
+                from, to, Date.valueOf(today));
+        if (!ids.isEmpty()) {
+            int updated = namedJdbcTemplate.update(
+                    "update cards set status = 'EXPIRED', version = version + 1 where id in (:ids)",
+                    new MapSqlParameterSource("ids", ids));
+            expiredCards.increment(updated);
+            cardStatsService.record(statsDelta);
+        }
+
+        // Пропущенные строки видны обычным чтением: чекпоинт не уходит дальше первой из них
+        Long firstSkipped = waitForLocks ? null : jdbcTemplate.queryForObject(
+                "select min(id) from cards where id >= ? and id < ? and status <> 'EXPIRED' and expiration_date < ?",
+                Long.class, from, to, Date.valueOf(today));
+        long nextId = firstSkipped != null ? firstSkipped : to;
+        jdbcTemplate.update(
+                "update job_checkpoints set next_id = ?, updated_at = current_timestamp where job_name = ? and segment = ?",
+                nextId, JOB_NAME, segment);
+        if (firstSkipped != null) {
+            return ChunkResult.SKIPPED;
+        }
+        return to < checkpoint.get(0)[1] ? ChunkResult.MORE : ChunkResult.DONE;
+    }
+
+    private enum ChunkResult {
+        MORE,
+        SKIPPED,
+        DONE
+    }
+}
@@ -1,11 +1,21 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BatchTransferResultDto;
 import com.example.bankcards.dto.CardRequestDto;
 import com.example.bankcards.dto.CardResponseDto;
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.dto.CursorPageDto;
 import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.dto.VersionedDto;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
 public interface CardService {
 
     CardResponseDto createCard(CardRequestDto request);
@@ -14,13 +24,35 @@ public interface CardService {
 
     Page<CardResponseDto> getAllCards(Pageable pageable);
 
+    CursorPageDto<CardResponseDto> scrollUserCards(String after, int size, String sortBy);
+
+    CursorPageDto<CardResponseDto> scrollAllCards(String after, int size, String sortBy);
+
     CardResponseDto getCardById(Long id);
 
+    String getCardEtag(Long id);
+
+    VersionedDto<CardResponseDto> getVersionedCardById(Long id);
+
+    String getUserCardsEtag(Pageable pageable);
+
+    VersionedDto<Page<CardResponseDto>> getVersionedUserCards(Pageable pageable);
+
+    CursorPageDto<CardTransactionDto> getCardTransactions(Long id, Instant from, Instant to, String after, int size);
+
     void deleteCard(Long id);
 
     void transferBetweenOwnCards(TransferRequestDto request);
 
+    boolean transferBetweenOwnCards(TransferRequestDto request, String idempotencyKey);
+
+    List<BatchTransferResultDto> transferBatch(List<TransferRequestDto> requests);
+
+    void subscribeToMyCardEvents(HttpServletRequest request, HttpServletResponse response) throws IOException;
+
     CardResponseDto blockCard(Long id);
 
     CardResponseDto activateCard(Long id);
+
+    CardResponseDto setHotStripes(Long id, int stripes);
 }
\ No newline at end of file
@@ -1,40 +1,111 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BatchTransferResultDto;
+import com.example.bankcards.dto.CardEventDto;
 import com.example.bankcards.dto.CardRequestDto;
 import com.example.bankcards.dto.CardResponseDto;
+import com.example.bankcards.dto.CardSummaryDto;
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.dto.CardVersionDto;
+import com.example.bankcards.dto.CursorPageDto;
 import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.dto.VersionedDto;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardTransaction;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.enums.Status;
 import com.example.bankcards.exception.CardNotFoundException;
-import com.example.bankcards.exception.InsufficientFundsException;
-import com.example.bankcards.exception.TransferNotAllowedException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.config.JwtService;
+import com.example.bankcards.service.bulk.CardNumberRegistry;
+import com.example.bankcards.service.transfer.TransferEngine;
+import com.example.bankcards.service.transfer.TransferMode;
+import com.example.bankcards.security.UserPrincipal;
 import com.example.bankcards.util.CardNumberMasker;
+import com.example.bankcards.util.CursorCodec;
+import io.micrometer.core.annotation.Timed;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.util.Streamable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "card.service", histogram = true)
 public class CardServiceImpl implements CardService {
 
+    private static final Map<String, Function<String, Object>> KEYSET_SORT_KEYS = Map.of(
+            "id", Long::valueOf,
+            "expirationDate", LocalDate::parse,
+            "balance", BigDecimal::new
+    );
+
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
     private final CardNumberMasker cardNumberMasker;
+    private final TransferEngine transferEngine;
+    private final IdempotencyService idempotencyService;
+    private final LedgerService ledgerService;
+    private final StripedBalanceService stripedBalanceService;
+    private final HotCardRegistry hotCardRegistry;
+    private final CursorCodec cursorCodec;
+    private final CardNumberRegistry cardNumberRegistry;
+    private final CardTransactionRepository cardTransactionRepository;
+    private final CardStatsService cardStatsService;
+    private final CardEventPublisher cardEventPublisher;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${cards.hot.max-stripes:64}")
+    private int maxStripes;
+
+    @Value("${cards.history.default-range:90d}")
+    private Duration historyDefaultRange;
 
     private String getCurrentUsername() {
         return SecurityContextHolder.getContext().getAuthentication().getName();
     }
 
+    private Long getCurrentUserId() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (principal instanceof UserPrincipal userPrincipal && userPrincipal.getUserId() != null) {
+            return userPrincipal.getUserId();
+        }
+        return userRepository.findByUsername(getCurrentUsername())
+                .orElseThrow(() -> new AccessDeniedException("User not found"))
+                .getId();
+    }
+
     private boolean isAdmin() {
         return SecurityContextHolder.getContext().getAuthentication()
                 .getAuthorities().stream()
@@ -56,38 +127,131 @@ public class CardServiceImpl implements CardService {
         card.setUser(user);
 
         Card savedCard = cardRepository.save(card);
+        cardNumberRegistry.add(savedCard.getCardNumber());
+        cardStatsService.record(new CardStatsDelta()
+                .cardAdded(Status.ACTIVE, savedCard.getBalance(), savedCard.getExpirationDate()));
         return convertToDto(savedCard);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public Page<CardResponseDto> getUserCards(Pageable pageable) {
-        String username = getCurrentUsername();
-        return cardRepository.findAllByUserUsername(username, pageable)
-                .map(this::convertToDto);
+        return withPendingBalances(toDtos(cardRepository.findSummariesByUserId(getCurrentUserId(), pageable)));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public Page<CardResponseDto> getAllCards(Pageable pageable) {
         if (!isAdmin()) {
             throw new AccessDeniedException("Only admin can access all cards");
         }
-        return cardRepository.findAll(pageable).map(this::convertToDto);
+        return withPendingBalances(toDtos(cardRepository.findAllSummaries(pageable)));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public CursorPageDto<CardResponseDto> scrollUserCards(String after, int size, String sortBy) {
+        ScrollPosition position = cursorCodec.decode(after, cursorKeys(sortBy));
+        return cursorCodec.toPage(withPendingBalances(toDtos(cardRepository
+                .findSummariesByUserId(getCurrentUserId(), position, cursorCodec.limit(size), keysetSort(sortBy)))));
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public CursorPageDto<CardResponseDto> scrollAllCards(String after, int size, String sortBy) {
+        if (!isAdmin()) {
+            throw new AccessDeniedException("Only admin can access all cards");
+        }
+        ScrollPosition position = cursorCodec.decode(after, cursorKeys(sortBy));
+        return cursorCodec.toPage(withPendingBalances(toDtos(cardRepository
+                .findSummariesBy(position, cursorCodec.limit(size), keysetSort(sortBy)))));
+    }
+
+    // Ключ сортировки дополняется id, чтобы позиция курсора была однозначной
+    private Map<String, Function<String, Object>> cursorKeys(String sortBy) {
+        Function<String, Object> parser = KEYSET_SORT_KEYS.get(sortBy);
+        if (parser == null) {
+            throw new IllegalArgumentException("Cursor paging supports sorting only by " + KEYSET_SORT_KEYS.keySet());
+        }
+        return sortBy.equals("id")
+                ? Map.of("id", parser)
+                : Map.of(sortBy, parser, "id", KEYSET_SORT_KEYS.get("id"));
+    }
+
+    private Sort keysetSort(String sortBy) {
+        return sortBy.equals("id")
+                ? Sort.by("id").descending()
+                : Sort.by(Sort.Order.desc(sortBy), Sort.Order.desc("id"));
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public CardResponseDto getCardById(Long id) {
+        CardResponseDto dto = convertToDto(loadReadableCard(id));
+        withPendingBalances(List.of(dto));
+        return dto;
+    }
+
+    // null, если карты нет или она чужая: тогда ответ строится полностью и отдаёт обычную ошибку
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public String getCardEtag(Long id) {
+        return cardRepository.findVersionById(id, isAdmin() ? null : getCurrentUserId())
+                .map(card -> etag("card", List.of(card)))
+                .orElse(null);
+    }
+
+    // ETag берётся из той же строки, что и тело, а полосы и журнал для него читаются раньше, чем для тела,
+    // поэтому при чтении с реплик тело не может оказаться старше ETag
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public VersionedDto<CardResponseDto> getVersionedCardById(Long id) {
+        Card card = loadReadableCard(id);
+        String etag = etag("card", List.of(new CardVersionDto(card.getId(), card.getVersion(), card.getStripeCount())));
+        CardResponseDto dto = convertToDto(card);
+        withPendingBalances(List.of(dto));
+        return new VersionedDto<>(dto, etag);
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public String getUserCardsEtag(Pageable pageable) {
+        Long userId = getCurrentUserId();
+        return userCardsEtag(userId, pageable, cardRepository.findVersionsByUserId(userId, pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public VersionedDto<Page<CardResponseDto>> getVersionedUserCards(Pageable pageable) {
+        Long userId = getCurrentUserId();
+        Page<CardSummaryDto> cards = cardRepository.findSummariesByUserId(userId, pageable);
+        String etag = userCardsEtag(userId, pageable,
+                cards.map(card -> new CardVersionDto(card.id(), card.version(), card.stripeCount())));
+        return new VersionedDto<>(withPendingBalances(toDtos(cards)), etag);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<CardTransactionDto> getCardTransactions(Long id, Instant from, Instant to, String after, int size) {
         Card card = cardRepository.findById(id)
                 .orElseThrow(() -> new CardNotFoundException("Card not found with id: " + id));
+        if (!isAdmin() && !card.getUser().getId().equals(getCurrentUserId())) {
+            throw new AccessDeniedException("You don't have access to this card");
+        }
 
-        if (!isAdmin()) {
-            if (!card.getUser().getUsername().equals(getCurrentUsername())) {
-                throw new AccessDeniedException("You don't have access to this card");
-            }
+        // Без явного диапазона читаются последние historyDefaultRange. Диапазон отсекает лишние секции, а индекс
+        // (card_id, created_at, id) отдаёт строки в порядке выдачи: секции обходятся от новой к старой до набора страницы
+        Instant rangeEnd = to != null ? to : Instant.now();
+        Instant rangeStart = from != null ? from : rangeEnd.minus(historyDefaultRange);
+        if (!rangeStart.isBefore(rangeEnd)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
         }
-        return convertToDto(card);
+
+        ScrollPosition position = cursorCodec.decode(after, Map.of("createdAt", Instant::parse, "id", Long::valueOf));
+        return cursorCodec.toPage(cardTransactionRepository
+                .findByCardIdAndCreatedAtGreaterThanEqualAndCreatedAtLessThan(id, rangeStart, rangeEnd, position,
+                        cursorCodec.limit(size), Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")))
+                .map(this::convertToDto));
     }
 
     @Override
@@ -96,64 +260,60 @@ public class CardServiceImpl implements CardService {
         if (!isAdmin()) {
             throw new AccessDeniedException("Only admin can delete cards");
         }
+        CardStatsDelta statsDelta = cardStatsService.cardRemoved(id);
+        Long ownerId = cardRepository.findOwnerId(id).orElse(null);
         cardRepository.deleteById(id);
+        hotCardRegistry.update(id, false);
+        cardStatsService.record(statsDelta);
+        if (ownerId != null) {
+            cardEventPublisher.publish(ownerId,
+                    () -> List.of(new CardEventDto(CardEventDto.Type.DELETED, id, null, Instant.now())));
+        }
     }
 
     @Override
-    @Transactional
     public void transferBetweenOwnCards(TransferRequestDto request) {
-        String username = getCurrentUsername();
-
-        // 1. Находим карты и сразу проверяем принадлежность
-        Card fromCard = cardRepository.findById(request.getFromCardId())
-                .orElseThrow(() -> new CardNotFoundException(request.getFromCardId()));
-
-        Card toCard = cardRepository.findById(request.getToCardId())
-                .orElseThrow(() -> new CardNotFoundException(request.getToCardId()));
-
-        // 2. Проверяем принадлежность ОДНИМ запросом (через объекты)
-        if (!fromCard.getUser().getUsername().equals(username)) {
-            throw new TransferNotAllowedException("Source card does not belong to you");
-        }
-
-        if (!toCard.getUser().getUsername().equals(username)) {
-            throw new TransferNotAllowedException("Target card does not belong to you");
-        }
-
-        // 3. Проверяем что это не перевод на ту же карту
-        if (fromCard.getId().equals(toCard.getId())) {
-            throw new TransferNotAllowedException("Cannot transfer to the same card");
-        }
+        transferEngine.transfer(request, getCurrentUsername());
+        publishBalances(getCurrentUserId(), List.of(request.getFromCardId(), request.getToCardId()));
+    }
 
-        // 4. Проверяем статус карт
-        if (fromCard.getStatus() != Status.ACTIVE) {
-            throw new TransferNotAllowedException("Source card is not active. Current status: " + fromCard.getStatus());
-        }
+    @Override
+    public boolean transferBetweenOwnCards(TransferRequestDto request, String idempotencyKey) {
+        String username = getCurrentUsername();
+        String requestHash = idempotencyService.fingerprint(request);
 
-        if (toCard.getStatus() != Status.ACTIVE) {
-            throw new TransferNotAllowedException("Target card is not active. Current status: " + toCard.getStatus());
+        if (idempotencyService.isKnownReplay(username, idempotencyKey, requestHash)) {
+            return false;
         }
 
-        // 5. Проверяем достаточность средств
-        if (fromCard.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientFundsException(
-                    String.format("Insufficient funds on card %s. Available: %s, Required: %s",
-                            fromCard.getId(), fromCard.getBalance(), request.getAmount())
-            );
+        boolean applied = transferEngine.transfer(request, username,
+                () -> idempotencyService.claim(username, idempotencyKey, requestHash));
+        idempotencyService.remember(username, idempotencyKey, requestHash);
+        if (applied) {
+            publishBalances(getCurrentUserId(), List.of(request.getFromCardId(), request.getToCardId()));
         }
+        return applied;
+    }
 
-        // 6. Проверяем положительную сумму перевода
-        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new TransferNotAllowedException("Transfer amount must be positive");
+    @Override
+    public List<BatchTransferResultDto> transferBatch(List<TransferRequestDto> requests) {
+        List<BatchTransferResultDto> results = transferEngine.transferBatch(requests, getCurrentUsername());
+        Set<Long> changed = new LinkedHashSet<>();
+        results.stream()
+                .filter(BatchTransferResultDto::isSuccess)
+                .forEach(result -> {
+                    changed.add(result.getFromCardId());
+                    changed.add(result.getToCardId());
+                });
+        if (!changed.isEmpty()) {
+            publishBalances(getCurrentUserId(), changed);
         }
+        return results;
+    }
 
-        // 7. Выполняем перевод
-        fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
-        toCard.setBalance(toCard.getBalance().add(request.getAmount()));
-
-        // 8. Сохраняем изменения
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
+    @Override
+    public void subscribeToMyCardEvents(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        cardEventPublisher.subscribe(getCurrentUserId(), request, response);
     }
 
     @Override
@@ -166,9 +326,12 @@ public class CardServiceImpl implements CardService {
             throw new AccessDeniedException("You can only block your own cards");
         }
 
+        cardStatsService.record(new CardStatsDelta().statusChanged(card.getStatus(), Status.BLOCKED));
         card.setStatus(Status.BLOCKED);
         Card savedCard = cardRepository.save(card);
-        return convertToDto(savedCard);
+        CardResponseDto dto = convertToDto(savedCard);
+        publishStatus(savedCard.getUser().getId(), dto);
+        return dto;
     }
 
     @Override
@@ -181,19 +344,164 @@ public class CardServiceImpl implements CardService {
         Card card = cardRepository.findById(id)
                 .orElseThrow(() -> new CardNotFoundException(id));
 
+        if (card.getExpirationDate().isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Card expired on " + card.getExpirationDate() + " and cannot be activated");
+        }
+        cardStatsService.record(new CardStatsDelta().statusChanged(card.getStatus(), Status.ACTIVE));
         card.setStatus(Status.ACTIVE);
         Card savedCard = cardRepository.save(card);
+        CardResponseDto dto = convertToDto(savedCard);
+        publishStatus(savedCard.getUser().getId(), dto);
+        return dto;
+    }
+
+    @Override
+    @Transactional
+    public CardResponseDto setHotStripes(Long id, int stripes) {
+        if (!isAdmin()) {
+            throw new AccessDeniedException("Only admin can change hot card mode");
+        }
+        if (stripes < 0 || stripes > maxStripes) {
+            throw new IllegalArgumentException("Stripes count must be between 0 and " + maxStripes);
+        }
+
+        Card card = cardRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new CardNotFoundException(id));
+
+        stripedBalanceService.restripe(card, stripes);
+        Card savedCard = cardRepository.save(card);
+        hotCardRegistry.update(id, stripes > 0);
         return convertToDto(savedCard);
     }
 
+    // Перевод уже закоммичен TransferEngine; балансы читаются, только если у владельца есть подписчики,
+    // в отдельной транзакции REPEATABLE READ, как и в GET-запросах
+    private void publishBalances(Long userId, Collection<Long> cardIds) {
+        cardEventPublisher.publish(userId, () -> snapshotRead().execute(status ->
+                withPendingBalances(cardRepository.findAllById(cardIds).stream()
+                        .map(this::convertToDto)
+                        .toList())
+                .stream()
+                .map(dto -> new CardEventDto(CardEventDto.Type.BALANCE, dto.getId(), dto, Instant.now()))
+                .toList()));
+    }
+
+    // После коммита синхронизация ещё привязана к потоку, поэтому нужна новая транзакция
+    private TransactionTemplate snapshotRead() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        return template;
+    }
+
+    private void publishStatus(Long userId, CardResponseDto dto) {
+        cardEventPublisher.publish(userId,
+                () -> List.of(new CardEventDto(CardEventDto.Type.STATUS, dto.getId(), dto, Instant.now())));
+    }
+
+    private Card loadReadableCard(Long id) {
+        Card card = cardRepository.findById(id)
+                .orElseThrow(() -> new CardNotFoundException("Card not found with id: " + id));
+
+        if (!isAdmin()) {
+            if (!card.getUser().getUsername().equals(getCurrentUsername())) {
+                throw new AccessDeniedException("You don't have access to this card");
+            }
+        }
+        return card;
+    }
+
+    private String userCardsEtag(Long userId, Pageable pageable, Page<CardVersionDto> versions) {
+        return etag("my:" + userId + ":" + pageable + ":" + versions.getTotalElements(), versions.getContent());
+    }
+
+    // Баланс меняется и без cards.version: зачисления в полосы и несведённые проводки LEDGER учитываются отдельно
+    private String etag(String scope, List<CardVersionDto> cards) {
+        List<Long> ids = cards.stream().map(CardVersionDto::id).toList();
+        List<Long> hotIds = cards.stream()
+                .filter(card -> card.stripeCount() > 0)
+                .map(CardVersionDto::id)
+                .toList();
+        Map<Long, Long> stripeVersions = stripedBalanceService.versions(hotIds);
+        Map<Long, Long> pending = transferEngine.getDefaultMode() == TransferMode.LEDGER
+                ? ledgerService.pendingCounts(ids)
+                : Map.of();
+
+        StringBuilder key = new StringBuilder(scope);
+        for (CardVersionDto card : cards) {
+            key.append('|').append(card.id())
+                    .append(':').append(card.version())
+                    .append(':').append(stripeVersions.getOrDefault(card.id(), 0L))
+                    .append(':').append(pending.getOrDefault(card.id(), 0L));
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // В режиме LEDGER зачисления копятся в журнале до фоновой проводки, поэтому добавляем их к cards.balance.
+    // Вызывающие читают в REPEATABLE READ: cards.balance, полосы и журнал берутся из одного снимка,
+    // и параллельный перевод или settleChunk не может учесть сумму дважды или потерять её
+    private <T extends Iterable<CardResponseDto>> T withPendingBalances(T cards) {
+        if (transferEngine.getDefaultMode() != TransferMode.LEDGER) {
+            return cards;
+        }
+        List<Long> ids = new ArrayList<>();
+        cards.forEach(card -> ids.add(card.getId()));
+        Map<Long, BigDecimal> pending = ledgerService.pendingDeltas(ids);
+        cards.forEach(card -> card.setBalance(card.getBalance().add(pending.getOrDefault(card.getId(), BigDecimal.ZERO))));
+        return cards;
+    }
+
+    // Полосы горячих карт страницы читаются одним запросом, а не по карте
+    private Page<CardResponseDto> toDtos(Page<CardSummaryDto> cards) {
+        Map<Long, BigDecimal> stripeTotals = stripeTotals(cards);
+        return cards.map(card -> toDto(card, stripeTotals));
+    }
+
+    private Window<CardResponseDto> toDtos(Window<CardSummaryDto> cards) {
+        Map<Long, BigDecimal> stripeTotals = stripeTotals(cards);
+        return cards.map(card -> toDto(card, stripeTotals));
+    }
+
+    private Map<Long, BigDecimal> stripeTotals(Streamable<CardSummaryDto> cards) {
+        List<Long> hotIds = cards.stream()
+                .filter(card -> card.stripeCount() > 0)
+                .map(CardSummaryDto::id)
+                .toList();
+        return stripedBalanceService.totals(hotIds);
+    }
+
+    private CardResponseDto toDto(CardSummaryDto card, Map<Long, BigDecimal> stripeTotals) {
+        CardResponseDto dto = new CardResponseDto();
+        dto.setId(card.id());
+        dto.setMaskedNumber(cardNumberMasker.maskCardNumber(card.cardNumber()));
+        dto.setOwnerName(card.ownerName());
+        dto.setBalance(card.balance().add(stripeTotals.getOrDefault(card.id(), BigDecimal.ZERO)));
+        dto.setStatus(card.status());
+        dto.setExpirationDate(card.expirationDate());
+        return dto;
+    }
+
     private CardResponseDto convertToDto(Card card) {
         CardResponseDto dto = new CardResponseDto();
         dto.setId(card.getId());
         dto.setMaskedNumber(cardNumberMasker.maskCardNumber(card.getCardNumber()));
         dto.setOwnerName(card.getOwnerName());
-        dto.setBalance(card.getBalance());
+        // У горячей карты часть баланса лежит в полосах card_balance_stripes
+        dto.setBalance(card.getStripeCount() > 0
+                ? card.getBalance().add(stripedBalanceService.total(card.getId()))
+                : card.getBalance());
         dto.setStatus(card.getStatus());
         dto.setExpirationDate(card.getExpirationDate());
         return dto;
     }
-}
\ No newline at end of file
+
+    private CardTransactionDto convertToDto(CardTransaction transaction) {
+        CardTransactionDto dto = new CardTransactionDto();
+        dto.setId(transaction.getId());
+        dto.setTransferId(transaction.getTransferId());
+        dto.setAmount(transaction.getAmount());
+        dto.setSettled(transaction.isSettled());
+        dto.setCreatedAt(transaction.getCreatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.enums.Status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+// Изменения статистики одной операции; копятся локально и применяются CardStatsService одним вызовом после коммита
+public class CardStatsDelta {
+
+    private final Map<String, Long> values = new HashMap<>();
+
+    public CardStatsDelta cardAdded(Status status, BigDecimal balance, LocalDate expirationDate) {
+        add(CardStatsService.cardsKey(status), 1);
+        add(CardStatsService.BALANCE_CENTS, CardStatsService.cents(balance));
+        add(CardStatsService.expiringKey(expirationDate), 1);
+        return this;
+    }
+
+    public CardStatsDelta cardRemoved(Status status, BigDecimal balance, LocalDate expirationDate) {
+        add(CardStatsService.cardsKey(status), -1);
+        add(CardStatsService.BALANCE_CENTS, -CardStatsService.cents(balance));
+        add(CardStatsService.expiringKey(expirationDate), -1);
+        return this;
+    }
+
+    public CardStatsDelta statusChanged(Status from, Status to) {
+        if (from != to) {
+            add(CardStatsService.cardsKey(from), -1);
+            add(CardStatsService.cardsKey(to), 1);
+        }
+        return this;
+    }
+
+    public CardStatsDelta transferred(BigDecimal amount) {
+        add(CardStatsService.TRANSFERS_COUNT, 1);
+        add(CardStatsService.TRANSFERS_CENTS, CardStatsService.cents(amount));
+        return this;
+    }
+
+    public CardStatsDelta users(long count) {
+        add(CardStatsService.USERS, count);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    Map<String, Long> values() {
+        return values;
+    }
+
+    private void add(String key, long value) {
+        values.merge(key, value, Long::sum);
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardStatsDto;
+import com.example.bankcards.entity.enums.Status;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Сводная статистика по картам для админки без агрегатов по cards на каждое чтение.
+ * Операции копят изменения в счётчиках памяти (после коммита своей транзакции), раз в stats.flush-interval
+ * они прибавляются к строкам card_stats, а чтение складывает последний снимок таблицы и ещё не сброшенные счётчики.
+ * Расхождения (изменения в обход сервисов, несколько инстансов во время пересчёта) убирает полный пересчёт
+ * раз в stats.recompute-interval. Деньги хранятся в копейках.
+ */
+@Service
+public class CardStatsService {
+
+    static final String BALANCE_CENTS = "balance.cents";
+    static final String USERS = "users";
+    static final String TRANSFERS_COUNT = "transfers.count";
+    static final String TRANSFERS_CENTS = "transfers.cents";
+    private static final String RECOMPUTED_AT = "recomputed.at";
+    private static final String CARDS_PREFIX = "cards.";
+    private static final String EXPIRING_PREFIX = "expiring.";
+    // Журнал слишком велик для полного прохода, поэтому эти счётчики пересчёт не трогает
+    private static final Set<String> NOT_RECOMPUTED = Set.of(TRANSFERS_COUNT, TRANSFERS_CENTS);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final int expiringWindowDays;
+    private final Map<String, AtomicLong> pending = new ConcurrentHashMap<>();
+    // Коммиты с изменениями статистики держат read lock от beforeCommit до переноса изменений в pending,
+    // пересчёт берёт write lock на время фиксации снимка
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    private volatile Map<String, Long> snapshot = Map.of();
+
+    public CardStatsService(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${stats.expiring-window-days:30}") int expiringWindowDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Не readOnly: снимок для пересчёта берётся с primary, а не с отстающей реплики
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.expiringWindowDays = expiringWindowDays;
+    }
+
+    // Внутри транзакции изменения учитываются только после коммита, откат их не затрагивает
+    public void record(CardStatsDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean locked;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    commitLock.readLock().lock();
+                    locked = true;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    try {
+                        if (status == STATUS_COMMITTED) {
+                            apply(delta);
+                        }
+                    } finally {
+                        if (locked) {
+                            commitLock.readLock().unlock();
+                        }
+                    }
+                }
+            });
+        } else {
+            apply(delta);
+        }
+    }
+
+    // Баланс удаляемой карты считается вместе с полосами и несведёнными проводками, которые уйдут каскадом
+    public CardStatsDelta cardRemoved(Long cardId) {
+        return cardsRemoved(new CardStatsDelta(), "c.id", cardId);
+    }
+
+    // Карты пользователя уходят вместе с ним по ON DELETE CASCADE, поэтому их вклад считается до удаления
+    public CardStatsDelta userRemoved(Long userId) {
+        return cardsRemoved(new CardStatsDelta().users(-1), "c.user_id", userId);
+    }
+
+    private CardStatsDelta cardsRemoved(CardStatsDelta delta, String column, Long id) {
+        jdbcTemplate.query(
+                "select c.status, c.expiration_date, c.balance " +
+                "+ coalesce((select sum(s.balance) from card_balance_stripes s where s.card_id = c.id), 0) " +
+                "+ coalesce((select sum(t.amount) from card_transactions t where t.card_id = c.id and t.settled = false), 0) " +
+                "from cards c where " + column + " = ?",
+                rs -> {
+                    delta.cardRemoved(Status.valueOf(rs.getString(1)), rs.getBigDecimal(3), rs.getDate(2).toLocalDate());
+                },
+                id);
+        return delta;
+    }
+
+    public CardStatsDto getStats() {
+        Map<Status, Long> byStatus = new EnumMap<>(Status.class);
+        long totalCards = 0;
+        for (Status status : Status.values()) {
+            long count = value(cardsKey(status));
+            byStatus.put(status, count);
+            totalCards += count;
+        }
+        LocalDate today = LocalDate.now();
+        long expiring = 0;
+        for (int day = 0; day <= expiringWindowDays; day++) {
+            expiring += value(expiringKey(today.plusDays(day)));
+        }
+        long users = value(USERS);
+        BigDecimal totalBalance = BigDecimal.valueOf(value(BALANCE_CENTS), 2);
+
+        CardStatsDto dto = new CardStatsDto();
+        dto.setCardsByStatus(byStatus);
+        dto.setTotalCards(totalCards);
+        dto.setTotalBalance(totalBalance);
+        dto.setAverageBalance(totalCards == 0 ? BigDecimal.ZERO.setScale(2)
+                : totalBalance.divide(BigDecimal.valueOf(totalCards), 2, RoundingMode.HALF_UP));
+        dto.setUsers(users);
+        dto.setAverageCardsPerUser(users == 0 ? 0 : (double) totalCards / users);
+        dto.setExpiringWithinDays(expiringWindowDays);
+        dto.setExpiringCards(expiring);
+        dto.setTransfers(value(TRANSFERS_COUNT));
+        dto.setTransferredAmount(BigDecimal.valueOf(value(TRANSFERS_CENTS), 2));
+        long recomputedAt = value(RECOMPUTED_AT);
+        dto.setRecomputedAt(recomputedAt == 0 ? null : Instant.ofEpochMilli(recomputedAt));
+        return dto;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Integer rows = jdbcTemplate.queryForObject("select count(*) from card_stats", Integer.class);
+        if (rows == null || rows == 0) {
+            recompute();
+        } else {
+            flush();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${stats.flush-interval:5s}", fixedDelayString = "${stats.flush-interval:5s}")
+    public synchronized void flush() {
+        Map<String, Long> drained = new HashMap<>();
+        pending.forEach((key, counter) -> {
+            long value = counter.getAndSet(0);
+            if (value != 0) {
+                drained.put(key, value);
+            }
+        });
+
+        if (!drained.isEmpty()) {
+            List<Object[]> keys = new ArrayList<>();
+            List<Object[]> increments = new ArrayList<>();
+            drained.forEach((key, value) -> {
+                keys.add(new Object[]{key});
+                increments.add(new Object[]{value, key});
+            });
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(
+                            "insert into card_stats (stat_key, stat_value, updated_at) values (?, 0, current_timestamp) " +
+                            "on conflict do nothing", keys);
+                    jdbcTemplate.batchUpdate(
+                            "update card_stats set stat_value = stat_value + ?, updated_at = current_timestamp " +
+                            "where stat_key = ?", increments);
+                });
+            } catch (RuntimeException e) {
+                // Не потерять изменения: вернуть их в счётчики до следующей попытки
+                drained.forEach(this::add);
+                throw e;
+            }
+        }
+        reloadSnapshot();
+    }
+
+    @Scheduled(initialDelayString = "${stats.recompute-interval:1h}", fixedDelayString = "${stats.recompute-interval:1h}")
+    public synchronized void recompute() {
+        Map<String, Long> values = new HashMap<>();
+        for (Status status : Status.values()) {
+            values.put(cardsKey(status), 0L);
+        }
+        snapshotTemplate.executeWithoutResult(status -> {
+            // Снимок REPEATABLE READ фиксируется первым запросом. Пока он берётся, ни одна транзакция
+            // со статистикой не коммитится: всё, что уже есть в pending, попадает в снимок и отбрасывается,
+            // а всё закоммиченное позже придёт в pending и будет сброшено обычным flush
+            commitLock.writeLock().lock();
+            try {
+                jdbcTemplate.queryForObject("select 1", Integer.class);
+                pending.forEach((key, counter) -> {
+                    if (!NOT_RECOMPUTED.contains(key)) {
+                        counter.set(0);
+                    }
+                });
+            } finally {
+                commitLock.writeLock().unlock();
+            }
+
+            jdbcTemplate.query("select status, count(*) from cards group by status", rs -> {
+                values.put(CARDS_PREFIX + rs.getString(1), rs.getLong(2));
+            });
+            BigDecimal balance = jdbcTemplate.queryForObject(
+                    "select (select coalesce(sum(balance), 0) from cards) " +
+                    "+ (select coalesce(sum(balance), 0) from card_balance_stripes) " +
+                    "+ (select coalesce(sum(amount), 0) from card_transactions where settled = false)",
+                    BigDecimal.class);
+            values.put(BALANCE_CENTS, cents(balance));
+            values.put(USERS, jdbcTemplate.queryForObject("select count(*) from users", Long.class));
+            jdbcTemplate.query(
+                    "select expiration_date, count(*) from cards where expiration_date >= ? group by expiration_date",
+                    rs -> {
+                        values.put(expiringKey(rs.getDate(1).toLocalDate()), rs.getLong(2));
+                    },
+                    Date.valueOf(LocalDate.now()));
+        });
+        values.put(RECOMPUTED_AT, System.currentTimeMillis());
+
+        // Запись идёт отдельной транзакцией READ COMMITTED, чтобы flush других инстансов не приводил к ошибке сериализации.
+        // Локальный flush до неё не выполнится: оба метода synchronized
+        List<Object[]> rows = new ArrayList<>();
+        values.forEach((key, value) -> rows.add(new Object[]{key, value}));
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from card_stats where stat_key not in (?, ?)", TRANSFERS_COUNT, TRANSFERS_CENTS);
+            jdbcTemplate.batchUpdate(
+                    "insert into card_stats (stat_key, stat_value, updated_at) values (?, ?, current_timestamp)", rows);
+        });
+        reloadSnapshot();
+    }
+
+    private void reloadSnapshot() {
+        Map<String, Long> values = new HashMap<>();
+        jdbcTemplate.query("select stat_key, stat_value from card_stats", rs -> {
+            values.put(rs.getString(1), rs.getLong(2));
+        });
+        snapshot = values;
+    }
+
+    private void apply(CardStatsDelta delta) {
+        delta.values().forEach(this::add);
+    }
+
+    private void add(String key, long value) {
+        pending.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(value);
+    }
+
+    private long value(String key) {
+        AtomicLong unflushed = pending.get(key);
+        return snapshot.getOrDefault(key, 0L) + (unflushed == null ? 0 : unflushed.get());
+    }
+
+    static String cardsKey(Status status) {
+        return CARDS_PREFIX + status.name();
+    }
+
+    static String expiringKey(LocalDate date) {
+        return EXPIRING_PREFIX + date;
+    }
+
+    static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
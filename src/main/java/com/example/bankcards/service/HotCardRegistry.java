@@ -0,0 +1,38 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Список горячих карт в памяти, чтобы не читать stripe_count на каждый перевод.
+// Устаревший список безопасен: без полос перевод идёт по cards.balance и в худшем случае отклоняется.
+@Component
+@RequiredArgsConstructor
+public class HotCardRegistry {
+
+    private final CardRepository cardRepository;
+    private volatile Set<Long> hotCardIds = Set.of();
+
+    public boolean isHot(Long cardId) {
+        return hotCardIds.contains(cardId);
+    }
+
+    @Scheduled(fixedDelayString = "${cards.hot.refresh-interval:30s}")
+    public void refresh() {
+        hotCardIds = Set.copyOf(cardRepository.findHotCardIds());
+    }
+
+    public synchronized void update(Long cardId, boolean hot) {
+        Set<Long> ids = new HashSet<>(hotCardIds);
+        if (hot) {
+            ids.add(cardId);
+        } else {
+            ids.remove(cardId);
+        }
+        hotCardIds = Set.copyOf(ids);
+    }
+}
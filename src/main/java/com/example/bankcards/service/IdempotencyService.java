@@ -0,0 +1,98 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.exception.IdempotencyKeyConflictException;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Duration ttl;
+    private final Cache<String, String> recentKeys;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              @Value("${idempotency.ttl:24h}") Duration ttl,
+                              @Value("${idempotency.cache.max-size:100000}") long cacheMaxSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.ttl = ttl;
+        this.recentKeys = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public String fingerprint(TransferRequestDto request) {
+        String payload = request.getFromCardId() + ":" + request.getToCardId() + ":"
+                + request.getAmount().stripTrailingZeros().toPlainString();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(payload.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Проверка только по памяти: повтор недавно выполненного запроса не доходит до БД
+    public boolean isKnownReplay(String username, String key, String requestHash) {
+        validateKey(key);
+        String knownHash = recentKeys.getIfPresent(cacheKey(username, key));
+        if (knownHash == null) {
+            return false;
+        }
+        checkSameRequest(knownHash, requestHash);
+        return true;
+    }
+
+    // Вызывается внутри транзакции перевода: ключ фиксируется вместе с переводом или откатывается вместе с ним.
+    // Параллельный запрос с тем же ключом ждёт на уникальном индексе, пока первая транзакция не завершится.
+    public boolean claim(String username, String key, String requestHash) {
+        if (idempotencyRecordRepository.insertIfAbsent(key, username, requestHash, Instant.now()) == 1) {
+            return true;
+        }
+        idempotencyRecordRepository.findByUsernameAndIdempotencyKey(username, key)
+                .ifPresent(record -> checkSameRequest(record.getRequestHash(), requestHash));
+        return false;
+    }
+
+    public void remember(String username, String key, String requestHash) {
+        recentKeys.put(cacheKey(username, key), requestHash);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval:1h}")
+    @Transactional
+    public void deleteExpiredKeys() {
+        idempotencyRecordRepository.deleteOlderThan(Instant.now().minus(ttl));
+    }
+
+    private void validateKey(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters long");
+        }
+    }
+
+    private void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IdempotencyKeyConflictException("Idempotency-Key was already used with a different request");
+        }
+    }
+
+    private String cacheKey(String username, String key) {
+        return username + ":" + key;
+    }
+}
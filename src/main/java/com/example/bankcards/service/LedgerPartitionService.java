@@ -0,0 +1,109 @@
+package com.example.bankcards.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Обслуживание месячных секций card_transactions в Postgres: заранее создаёт секции на
+ * ledger.partitions.months-ahead месяцев вперёд и отцепляет секции старше ledger.partitions.retention-months.
+ * Отцепленная секция остаётся обычной таблицей: её можно выгрузить в архив и удалить через DROP TABLE
+ * без массового DELETE и последующего VACUUM. В H2 секционирования нет, и сервис ничего не делает.
+ */
+@Service
+public class LedgerPartitionService {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("card_transactions_y(\\d{4})m(\\d{2})");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private volatile Boolean partitioned;
+
+    public LedgerPartitionService(JdbcTemplate jdbcTemplate,
+                                  @Value("${ledger.partitions.months-ahead:3}") int monthsAhead,
+                                  @Value("${ledger.partitions.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.partitions.maintenance-interval:6h}")
+    public void maintainPartitions() {
+        if (!isPartitioned()) {
+            return;
+        }
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(current.plusMonths(i));
+        }
+        if (retentionMonths > 0) {
+            detachBefore(current.minusMonths(retentionMonths));
+        }
+    }
+
+    public void createPartition(YearMonth month) {
+        jdbcTemplate.execute(String.format(
+                "create table if not exists %s partition of card_transactions for values from ('%s') to ('%s')",
+                partitionName(month), monthStart(month), monthStart(month.plusMonths(1))));
+    }
+
+    // Секция отцепляется, только когда все её строки перенесены в cards.balance.
+    // CONCURRENTLY не берёт эксклюзивную блокировку родителя, но не работает внутри транзакции
+    public void detachBefore(YearMonth oldestKept) {
+        for (String partition : attachedPartitions()) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(oldestKept)) {
+                continue;
+            }
+            Boolean unsettled = jdbcTemplate.queryForObject(
+                    "select exists (select 1 from " + partition + " where settled = false)", Boolean.class);
+            if (Boolean.FALSE.equals(unsettled)) {
+                jdbcTemplate.execute("alter table card_transactions detach partition " + partition + " concurrently");
+            }
+        }
+    }
+
+    private List<String> attachedPartitions() {
+        return jdbcTemplate.queryForList(
+                "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid " +
+                "where i.inhparent = 'card_transactions'::regclass order by c.relname",
+                String.class);
+    }
+
+    private boolean isPartitioned() {
+        Boolean result = partitioned;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equals(product) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "select exists (select 1 from pg_partitioned_table where partrelid = 'card_transactions'::regclass)",
+                    Boolean.class));
+            partitioned = result;
+        }
+        return result;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "card_transactions_" + month.format(PARTITION_SUFFIX);
+    }
+
+    private static OffsetDateTime monthStart(YearMonth month) {
+        return month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+}
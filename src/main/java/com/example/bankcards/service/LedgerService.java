@@ -0,0 +1,143 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferRequestDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Журнал переводов card_transactions. Каждый перевод - одна вставка пары строк (списание и зачисление).
+ * Строки с settled = false ещё не учтены в cards.balance: актуальный баланс карты равен
+ * cards.balance плюс сумма её неучтённых строк, а фоновая задача переносит их в cards.balance порциями.
+ */
+@Service
+public class LedgerService {
+
+    private static final String INSERT_PAIR =
+            "insert into card_transactions (transfer_id, card_id, amount, settled, created_at) " +
+            "values (?, ?, ?, ?, current_timestamp), (?, ?, ?, ?, current_timestamp)";
+
+    private static final String INSERT_ENTRY =
+            "insert into card_transactions (transfer_id, card_id, amount, settled, created_at) " +
+            "values (?, ?, ?, ?, current_timestamp)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int settleChunkSize;
+
+    public LedgerService(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${ledger.settle.chunk-size:1000}") int settleChunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settleChunkSize = settleChunkSize;
+    }
+
+    public void recordTransfer(Long fromCardId, Long toCardId, BigDecimal amount, boolean settled) {
+        UUID transferId = UUID.randomUUID();
+        jdbcTemplate.update(INSERT_PAIR,
+                transferId, fromCardId, amount.negate(), settled,
+                transferId, toCardId, amount, settled);
+    }
+
+    public void recordTransfers(List<TransferRequestDto> transfers) {
+        List<Object[]> rows = new ArrayList<>(transfers.size() * 2);
+        for (TransferRequestDto transfer : transfers) {
+            UUID transferId = UUID.randomUUID();
+            rows.add(new Object[]{transferId, transfer.getFromCardId(), transfer.getAmount().negate(), true});
+            rows.add(new Object[]{transferId, transfer.getToCardId(), transfer.getAmount(), true});
+        }
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, rows);
+    }
+
+    public BigDecimal pendingDelta(Long cardId) {
+        return jdbcTemplate.queryForObject(
+                "select coalesce(sum(amount), 0) from card_transactions where card_id = ? and settled = false",
+                BigDecimal.class, cardId);
+    }
+
+    public Map<Long, BigDecimal> pendingDeltas(Collection<Long> cardIds) {
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        if (cardIds.isEmpty()) {
+            return deltas;
+        }
+        namedJdbcTemplate.query(
+                "select card_id, sum(amount) from card_transactions " +
+                "where card_id in (:ids) and settled = false group by card_id",
+                new MapSqlParameterSource("ids", cardIds),
+                rs -> {
+                    deltas.put(rs.getLong(1), rs.getBigDecimal(2));
+                });
+        return deltas;
+    }
+
+    // Число несведённых строк только растёт, пока проводка не увеличит version карты, поэтому годится для ETag
+    public Map<Long, Long> pendingCounts(Collection<Long> cardIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (cardIds.isEmpty()) {
+            return counts;
+        }
+        namedJdbcTemplate.query(
+                "select card_id, count(*) from card_transactions " +
+                "where card_id in (:ids) and settled = false group by card_id",
+                new MapSqlParameterSource("ids", cardIds),
+                rs -> {
+                    counts.put(rs.getLong(1), rs.getLong(2));
+                });
+        return counts;
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.settle.interval:5s}")
+    public void settlePending() {
+        // Короткие транзакции по settleChunkSize строк, чтобы не держать блокировки карт надолго
+        int settled;
+        do {
+            settled = settleChunk();
+        } while (settled == settleChunkSize);
+    }
+
+    public int settleChunk() {
+        Integer settled = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            Map<Long, BigDecimal> deltas = new HashMap<>();
+            jdbcTemplate.query(
+                    "select id, card_id, amount from card_transactions where settled = false " +
+                    "order by id fetch first ? rows only for update",
+                    rs -> {
+                        ids.add(rs.getLong(1));
+                        deltas.merge(rs.getLong(2), rs.getBigDecimal(3), BigDecimal::add);
+                    },
+                    settleChunkSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            List<Object[]> updates = new ArrayList<>();
+            deltas.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> updates.add(new Object[]{entry.getValue(), entry.getKey()}));
+            jdbcTemplate.batchUpdate(
+                    "update cards set balance = balance + ?, version = version + 1 where id = ?", updates);
+            namedJdbcTemplate.update(
+                    "update card_transactions set settled = true where id in (:ids)",
+                    new MapSqlParameterSource("ids", ids));
+            return ids.size();
+        });
+        return settled == null ? 0 : settled;
+    }
+}
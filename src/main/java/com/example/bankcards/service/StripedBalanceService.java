@@ -0,0 +1,144 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.InsufficientFundsException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Баланс "горячей" карты разложен на cards.balance и N строк card_balance_stripes.
+ * Зачисление обновляет одну случайную полосу и не трогает строку карты, поэтому параллельные
+ * зачисления на одну карту расходятся по N разным блокировкам. Списание выполняется под
+ * блокировкой строки карты: сначала из cards.balance, затем из полос.
+ * Каждое изменение полосы увеличивает её version: по нему ETag карты замечает движения в полосах,
+ * которые не трогают cards.version.
+ */
+@Service
+@RequiredArgsConstructor
+public class StripedBalanceService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BigDecimal total(Long cardId) {
+        return jdbcTemplate.queryForObject(
+                "select coalesce(sum(balance), 0) from card_balance_stripes where card_id = ?",
+                BigDecimal.class, cardId);
+    }
+
+    public Map<Long, BigDecimal> totals(Collection<Long> cardIds) {
+        Map<Long, BigDecimal> totals = new HashMap<>();
+        if (cardIds.isEmpty()) {
+            return totals;
+        }
+        new NamedParameterJdbcTemplate(jdbcTemplate).query(
+                "select card_id, sum(balance) from card_balance_stripes where card_id in (:ids) group by card_id",
+                new MapSqlParameterSource("ids", cardIds),
+                rs -> {
+                    totals.put(rs.getLong(1), rs.getBigDecimal(2));
+                });
+        return totals;
+    }
+
+    public Map<Long, Long> versions(Collection<Long> cardIds) {
+        Map<Long, Long> versions = new HashMap<>();
+        if (cardIds.isEmpty()) {
+            return versions;
+        }
+        new NamedParameterJdbcTemplate(jdbcTemplate).query(
+                "select card_id, sum(version) from card_balance_stripes where card_id in (:ids) group by card_id",
+                new MapSqlParameterSource("ids", cardIds),
+                rs -> {
+                    versions.put(rs.getLong(1), rs.getLong(2));
+                });
+        return versions;
+    }
+
+    public void credit(Card card, BigDecimal amount) {
+        int stripe = ThreadLocalRandom.current().nextInt(card.getStripeCount());
+        int updated = jdbcTemplate.update(
+                "update card_balance_stripes set balance = balance + ?, version = version + 1 where card_id = ? and stripe = ?",
+                amount, card.getId(), stripe);
+        if (updated == 0) {
+            // Полосы успели пересобрать или отключить: зачисляем в основной баланс
+            jdbcTemplate.update(
+                    "update cards set balance = balance + ?, version = version + 1 where id = ?",
+                    amount, card.getId());
+        }
+    }
+
+    // Карта должна быть заблокирована вызывающим кодом. Возвращает сумму, снятую с полос.
+    public BigDecimal debit(Card card, BigDecimal amount) {
+        BigDecimal fromBase = card.getBalance().max(BigDecimal.ZERO).min(amount);
+        card.setBalance(card.getBalance().subtract(fromBase));
+        BigDecimal remaining = amount.subtract(fromBase);
+        if (remaining.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+
+        // Быстрый путь: одна случайная полоса, в которой хватает средств
+        int stripe = ThreadLocalRandom.current().nextInt(card.getStripeCount());
+        int updated = jdbcTemplate.update(
+                "update card_balance_stripes set balance = balance - ?, version = version + 1 " +
+                "where card_id = ? and stripe = ? and balance >= ?",
+                remaining, card.getId(), stripe, remaining);
+        if (updated == 1) {
+            return remaining;
+        }
+
+        // Запасной путь: блокируем все полосы по порядку и вычерпываем их последовательно
+        List<Object[]> stripes = jdbcTemplate.query(
+                "select stripe, balance from card_balance_stripes where card_id = ? order by stripe for update",
+                (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getBigDecimal(2)},
+                card.getId());
+        BigDecimal left = remaining;
+        List<Object[]> updates = new ArrayList<>();
+        for (Object[] row : stripes) {
+            if (left.signum() == 0) {
+                break;
+            }
+            BigDecimal take = ((BigDecimal) row[1]).min(left);
+            if (take.signum() > 0) {
+                updates.add(new Object[]{take, card.getId(), row[0]});
+                left = left.subtract(take);
+            }
+        }
+        if (left.signum() > 0) {
+            throw new InsufficientFundsException(
+                    String.format("Insufficient funds on card %s. Required: %s", card.getId(), amount));
+        }
+        jdbcTemplate.batchUpdate(
+                "update card_balance_stripes set balance = balance - ?, version = version + 1 where card_id = ? and stripe = ?",
+                updates);
+        return remaining;
+    }
+
+    // Карта должна быть заблокирована вызывающим кодом
+    public void restripe(Card card, int stripes) {
+        BigDecimal folded = jdbcTemplate.queryForList(
+                        "select balance from card_balance_stripes where card_id = ? order by stripe for update",
+                        BigDecimal.class, card.getId())
+                .stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        jdbcTemplate.update("delete from card_balance_stripes where card_id = ?", card.getId());
+        card.setBalance(card.getBalance().add(folded));
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            rows.add(new Object[]{card.getId(), stripe});
+        }
+        jdbcTemplate.batchUpdate(
+                "insert into card_balance_stripes (card_id, stripe, balance) values (?, ?, 0)", rows);
+        card.setStripeCount(stripes);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.dto.CreateUserRequestDto;
+import com.example.bankcards.dto.CursorPageDto;
 import com.example.bankcards.dto.UserResponseDto;
 import com.example.bankcards.entity.User;
 import org.springframework.data.domain.Page;
@@ -9,6 +10,8 @@ import org.springframework.data.domain.Pageable;
 public interface UserService {
     Page<UserResponseDto> getAllUsers(Pageable pageable);
 
+    CursorPageDto<UserResponseDto> scrollUsers(String after, int size);
+
     User createUser(CreateUserRequestDto request);
 
     void deleteUser(Long id);
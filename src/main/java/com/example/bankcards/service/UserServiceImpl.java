@@ -1,49 +1,80 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.dto.CreateUserRequestDto;
+import com.example.bankcards.dto.CursorPageDto;
 import com.example.bankcards.dto.UserResponseDto;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.enums.Role;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.CustomUserDetailsService;
+import com.example.bankcards.security.TokenDenylist;
+import com.example.bankcards.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
-    private PasswordEncoder passwordEncoder;
+    private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
+    private final TokenDenylist tokenDenylist;
+    private final CardStatsService cardStatsService;
+    private final CursorCodec cursorCodec;
 
     @Override
+    @Transactional(readOnly = true)
     public Page<UserResponseDto> getAllUsers(Pageable pageable) {
         return  userRepository.findAll(pageable)
                 .map(this::convertToDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<UserResponseDto> scrollUsers(String after, int size) {
+        ScrollPosition position = cursorCodec.decode(after, Map.of("id", Long::valueOf));
+        return cursorCodec.toPage(userRepository
+                .findAllBy(position, cursorCodec.limit(size), Sort.by("id").descending())
+                .map(this::convertToDto));
+    }
+
     @Override
     public User createUser(CreateUserRequestDto request) {
         User user = new User();
         user.setUsername(request.getUsername());
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         user.setRole(Role.valueOf(request.getRole()));
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userDetailsService.evict(savedUser.getUsername());
+        cardStatsService.record(new CardStatsDelta().users(1));
+        return savedUser;
     }
 
     @Override
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("User not found with id: " + id);
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        CardStatsDelta statsDelta = cardStatsService.userRemoved(user.getId());
+        userRepository.delete(user);
+        userDetailsService.evict(user.getUsername());
+        cardStatsService.record(statsDelta);
+        // Выданные токены несут роль и userId в claims, без отзыва они работали бы до exp
+        tokenDenylist.revokeUser(user.getId());
     }
 
     private UserResponseDto convertToDto(User user) {
 
         UserResponseDto dto = new UserResponseDto();
+        dto.setId(user.getId());
         dto.setUsername(user.getUsername());
         dto.setRole(user.getRole().toString());
 
@@ -0,0 +1,138 @@
+package com.example.bankcards.service.bulk;
+
+import com.example.bankcards.util.CardNumberMasker;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Потоковая выгрузка всех карт. Строки читаются JDBC-курсором порциями по fetch-size
+ * и сразу пишутся в ответ, поэтому память не зависит от числа карт, а сущности Hibernate не создаются.
+ * Баланс включает полосы горячих карт и ещё не проведённые записи журнала.
+ */
+@Service
+public class CardExportService {
+
+    private static final String EXPORT_QUERY =
+            "select c.id, c.card_number, c.owner_name, " +
+            "c.balance + coalesce(s.total, 0) + coalesce(t.total, 0) as balance, " +
+            "c.status, c.expiration_date, c.user_id " +
+            "from cards c " +
+            "left join (select card_id, sum(balance) as total from card_balance_stripes group by card_id) s " +
+            "on s.card_id = c.id " +
+            "left join (select card_id, sum(amount) as total from card_transactions where settled = false group by card_id) t " +
+            "on t.card_id = c.id " +
+            "order by c.id";
+
+    private static final String CSV_HEADER = "id,masked_number,owner_name,balance,status,expiration_date,user_id\n";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CardNumberMasker cardNumberMasker;
+    private final ObjectMapper objectMapper;
+
+    public CardExportService(DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             CardNumberMasker cardNumberMasker,
+                             ObjectMapper objectMapper,
+                             @Value("${cards.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // Postgres отдаёт строки порциями только вне режима autocommit
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.cardNumberMasker = cardNumberMasker;
+        this.objectMapper = objectMapper;
+    }
+
+    public void exportCards(BulkFormat format, OutputStream output) throws IOException {
+        try {
+            switch (format) {
+                case NDJSON -> exportNdjson(output);
+                case CSV -> exportCsv(output);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void exportNdjson(OutputStream output) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            streamRows(rs -> {
+                generator.writeStartObject();
+                generator.writeNumberField("id", rs.getLong("id"));
+                generator.writeStringField("maskedNumber", cardNumberMasker.maskCardNumber(rs.getString("card_number")));
+                generator.writeStringField("ownerName", rs.getString("owner_name"));
+                generator.writeNumberField("balance", rs.getBigDecimal("balance"));
+                generator.writeStringField("status", rs.getString("status"));
+                generator.writeStringField("expirationDate", rs.getDate("expiration_date").toLocalDate().toString());
+                generator.writeNumberField("userId", rs.getLong("user_id"));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            });
+        }
+    }
+
+    private void exportCsv(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        streamRows(rs -> {
+            writer.write(Long.toString(rs.getLong("id")));
+            writer.write(',');
+            writer.write(cardNumberMasker.maskCardNumber(rs.getString("card_number")));
+            writer.write(',');
+            writer.write(csvField(rs.getString("owner_name")));
+            writer.write(',');
+            writer.write(rs.getBigDecimal("balance").toPlainString());
+            writer.write(',');
+            writer.write(rs.getString("status"));
+            writer.write(',');
+            writer.write(rs.getDate("expiration_date").toLocalDate().toString());
+            writer.write(',');
+            writer.write(Long.toString(rs.getLong("user_id")));
+            writer.write('\n');
+        });
+        writer.flush();
+    }
+
+    private void streamRows(RowWriter rowWriter) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(EXPORT_QUERY, rs -> {
+            try {
+                rowWriter.write(rs);
+            } catch (IOException e) {
+                // Клиент оборвал соединение: прекращаем чтение курсора
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+}
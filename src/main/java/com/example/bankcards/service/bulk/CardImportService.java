@@ -0,0 +1,249 @@
+package com.example.bankcards.service.bulk;
+
+import com.example.bankcards.dto.CardImportResultDto;
+import com.example.bankcards.dto.CardRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.Status;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardStatsDelta;
+import com.example.bankcards.service.CardStatsService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Массовый импорт карт из CSV или NDJSON. Входной поток читается построчно и обрабатывается пачками:
+ * владельцы и занятые номера карт проверяются одним запросом на пачку, вставка идёт JDBC-пакетами
+ * с id из пула последовательности cards_id_seq. Результат по каждой строке пишется в ответ после фиксации пачки.
+ */
+@Service
+public class CardImportService {
+
+    private static final List<String> CSV_COLUMNS =
+            List.of("card_number", "owner_name", "expiration_date", "initial_balance", "user_id");
+
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final CardNumberRegistry cardNumberRegistry;
+    private final CardStatsService cardStatsService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CardImportService(CardRepository cardRepository,
+                             UserRepository userRepository,
+                             CardNumberRegistry cardNumberRegistry,
+                             CardStatsService cardStatsService,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${cards.import.batch-size:500}") int batchSize) {
+        this.cardRepository = cardRepository;
+        this.userRepository = userRepository;
+        this.cardNumberRegistry = cardNumberRegistry;
+        this.cardStatsService = cardStatsService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    public void importCards(BulkFormat format, InputStream input, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            Map<String, Integer> columns = format == BulkFormat.CSV ? readCsvHeader(reader) : null;
+            List<ImportRow> batch = new ArrayList<>(batchSize);
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                batch.add(parse(lineNumber, line, columns));
+                if (batch.size() == batchSize) {
+                    writeResults(generator, importBatch(batch));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeResults(generator, importBatch(batch));
+            }
+        }
+    }
+
+    private List<CardImportResultDto> importBatch(List<ImportRow> rows) {
+        Map<Long, CardImportResultDto> failures = new HashMap<>();
+        List<ImportRow> valid = new ArrayList<>();
+        for (ImportRow row : rows) {
+            String error = row.error() != null ? row.error() : validate(row.request());
+            if (error != null) {
+                failures.put(row.line(), new CardImportResultDto(row.line(), false, null, error));
+            } else {
+                valid.add(row);
+            }
+        }
+
+        List<CardImportResultDto> results = new ArrayList<>(rows.size());
+        try {
+            Map<Long, Long> cardIds = transactionTemplate.execute(status -> insert(valid, failures));
+            for (ImportRow row : rows) {
+                CardImportResultDto failure = failures.get(row.line());
+                results.add(failure != null ? failure : new CardImportResultDto(row.line(), true, cardIds.get(row.line()), null));
+            }
+        } catch (DataAccessException | PersistenceException e) {
+            // Пачка откатилась целиком (например, номер карты заняли параллельно)
+            for (ImportRow row : rows) {
+                CardImportResultDto failure = failures.get(row.line());
+                results.add(failure != null ? failure
+                        : new CardImportResultDto(row.line(), false, null, "Batch rejected by database, retry these rows"));
+            }
+        }
+        return results;
+    }
+
+    private Map<Long, Long> insert(List<ImportRow> rows, Map<Long, CardImportResultDto> failures) {
+        Set<Long> userIds = rows.stream().map(row -> row.request().getUserId()).collect(Collectors.toSet());
+        Set<String> cardNumbers = rows.stream().map(row -> row.request().getCardNumber()).collect(Collectors.toSet());
+        Set<Long> existingUsers = userIds.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingIds(userIds));
+        Set<String> takenNumbers = cardNumbers.isEmpty() ? new HashSet<>() : new HashSet<>(cardRepository.findExistingCardNumbers(cardNumbers));
+
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(batchSize);
+
+        Map<Long, Card> cards = new HashMap<>();
+        CardStatsDelta statsDelta = new CardStatsDelta();
+        for (ImportRow row : rows) {
+            CardRequestDto request = row.request();
+            if (!existingUsers.contains(request.getUserId())) {
+                failures.put(row.line(), new CardImportResultDto(row.line(), false, null, "User not found"));
+                continue;
+            }
+            if (!takenNumbers.add(request.getCardNumber())) {
+                failures.put(row.line(), new CardImportResultDto(row.line(), false, null, "Card number already exists"));
+                continue;
+            }
+            Card card = new Card();
+            card.setCardNumber(request.getCardNumber());
+            card.setOwnerName(request.getOwnerName());
+            card.setExpirationDate(request.getExpirationDate());
+            card.setBalance(request.getInitialBalance());
+            card.setStatus(Status.ACTIVE);
+            card.setUser(entityManager.getReference(User.class, request.getUserId()));
+            entityManager.persist(card);
+            cards.put(row.line(), card);
+            statsDelta.cardAdded(Status.ACTIVE, card.getBalance(), card.getExpirationDate());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        cards.values().forEach(card -> cardNumberRegistry.add(card.getCardNumber()));
+        cardStatsService.record(statsDelta);
+
+        Map<Long, Long> ids = new HashMap<>();
+        cards.forEach((line, card) -> ids.put(line, card.getId()));
+        return ids;
+    }
+
+    private String validate(CardRequestDto request) {
+        Set<ConstraintViolation<CardRequestDto>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private ImportRow parse(long lineNumber, String line, Map<String, Integer> columns) {
+        try {
+            if (columns == null) {
+                return new ImportRow(lineNumber, objectMapper.readValue(line, CardRequestDto.class), null);
+            }
+            List<String> fields = CsvLines.split(line);
+            CardRequestDto request = new CardRequestDto();
+            request.setCardNumber(field(fields, columns, "card_number"));
+            request.setOwnerName(field(fields, columns, "owner_name"));
+            String expirationDate = field(fields, columns, "expiration_date");
+            request.setExpirationDate(expirationDate == null ? null : LocalDate.parse(expirationDate));
+            String balance = field(fields, columns, "initial_balance");
+            request.setInitialBalance(balance == null ? null : new BigDecimal(balance));
+            String userId = field(fields, columns, "user_id");
+            request.setUserId(userId == null ? null : Long.valueOf(userId));
+            return new ImportRow(lineNumber, request, null);
+        } catch (IOException | RuntimeException e) {
+            return new ImportRow(lineNumber, null, "Malformed row");
+        }
+    }
+
+    private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV header is required: " + String.join(",", CSV_COLUMNS));
+        }
+        List<String> names = CsvLines.split(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(), i);
+        }
+        if (!columns.keySet().containsAll(CSV_COLUMNS)) {
+            throw new IllegalArgumentException("CSV header is required: " + String.join(",", CSV_COLUMNS));
+        }
+        return columns;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        int index = columns.get(name);
+        if (index >= fields.size() || fields.get(index).isBlank()) {
+            return null;
+        }
+        return fields.get(index).trim();
+    }
+
+    private void writeResults(JsonGenerator generator, List<CardImportResultDto> results) throws IOException {
+        for (CardImportResultDto result : results) {
+            objectMapper.writeValue(generator, result);
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private record ImportRow(long line, CardRequestDto request, String error) {
+    }
+}
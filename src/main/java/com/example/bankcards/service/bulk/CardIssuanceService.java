@@ -0,0 +1,166 @@
+package com.example.bankcards.service.bulk;
+
+import com.example.bankcards.dto.CardIssueRequestDto;
+import com.example.bankcards.dto.CardIssueResultDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.Status;
+import com.example.bankcards.exception.CardIssuanceException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardStatsDelta;
+import com.example.bankcards.service.CardStatsService;
+import com.example.bankcards.util.CardNumberGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Выпуск карт с номерами, сгенерированными на сервере. Кандидаты отсеиваются фильтром занятых номеров
+ * без обращения к БД, затем каждая пачка сверяется с cards одним запросом и вставляется JDBC-пакетом
+ * в своей транзакции. В ответ возвращается сводка, а не список карт.
+ */
+@Service
+public class CardIssuanceService {
+
+    // Сколько кандидатов на одну карту можно перебрать, прежде чем считать диапазон BIN исчерпанным
+    private static final int MAX_CANDIDATES_PER_CARD = 20;
+
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final CardNumberGenerator cardNumberGenerator;
+    private final CardNumberRegistry cardNumberRegistry;
+    private final CardStatsService cardStatsService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxCount;
+    private final int batchSize;
+    private final int validityYears;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CardIssuanceService(CardRepository cardRepository,
+                               UserRepository userRepository,
+                               CardNumberGenerator cardNumberGenerator,
+                               CardNumberRegistry cardNumberRegistry,
+                               CardStatsService cardStatsService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${cards.issue.max-count:50000}") int maxCount,
+                               @Value("${cards.issue.batch-size:1000}") int batchSize,
+                               @Value("${cards.issue.validity-years:4}") int validityYears) {
+        this.cardRepository = cardRepository;
+        this.userRepository = userRepository;
+        this.cardNumberGenerator = cardNumberGenerator;
+        this.cardNumberRegistry = cardNumberRegistry;
+        this.cardStatsService = cardStatsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxCount = maxCount;
+        this.batchSize = batchSize;
+        this.validityYears = validityYears;
+    }
+
+    // Каждая пачка фиксируется отдельно: при ошибке уже выпущенные карты остаются, а в сводке указывается причина
+    public CardIssueResultDto issueCards(CardIssueRequestDto request) {
+        if (request.getCount() > maxCount) {
+            throw new IllegalArgumentException("Count must not exceed " + maxCount);
+        }
+        if (!userRepository.existsById(request.getUserId())) {
+            throw new IllegalArgumentException("User not found with id: " + request.getUserId());
+        }
+        LocalDate expirationDate = request.getExpirationDate() != null
+                ? request.getExpirationDate()
+                : LocalDate.now().plusYears(validityYears);
+        BigDecimal balance = request.getInitialBalance() != null ? request.getInitialBalance() : BigDecimal.ZERO;
+
+        CardIssueResultDto result = new CardIssueResultDto(request.getCount(), 0, null, null, null);
+        long candidatesLeft = (long) request.getCount() * MAX_CANDIDATES_PER_CARD;
+        while (result.getIssued() < request.getCount()) {
+            int needed = Math.min(batchSize, request.getCount() - result.getIssued());
+            Set<String> candidates = new HashSet<>(needed);
+            while (candidates.size() < needed && candidatesLeft > 0) {
+                candidatesLeft--;
+                String cardNumber = cardNumberGenerator.generate();
+                if (!cardNumberRegistry.mightExist(cardNumber)) {
+                    candidates.add(cardNumber);
+                }
+            }
+            if (candidates.size() < needed) {
+                return fail(result, new CardIssuanceException("Card number BIN range is exhausted"));
+            }
+
+            List<Long> ids;
+            try {
+                ids = transactionTemplate.execute(status ->
+                        insert(candidates, request.getUserId(), request.getOwnerName(), expirationDate, balance));
+            } catch (DataAccessException | PersistenceException e) {
+                // Пачка откатилась целиком (например, номер заняли параллельно)
+                return fail(result, new CardIssuanceException("Batch rejected by database, retry the remaining cards"));
+            }
+            for (Long id : ids) {
+                result.setFirstCardId(result.getFirstCardId() == null ? id : Math.min(result.getFirstCardId(), id));
+                result.setLastCardId(result.getLastCardId() == null ? id : Math.max(result.getLastCardId(), id));
+            }
+            result.setIssued(result.getIssued() + ids.size());
+        }
+        return result;
+    }
+
+    private List<Long> insert(Set<String> candidates, Long userId, String ownerName,
+                              LocalDate expirationDate, BigDecimal balance) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+
+        // Номера, выпущенные другими экземплярами после построения фильтра
+        for (String taken : cardRepository.findExistingCardNumbers(candidates)) {
+            cardNumberRegistry.add(taken);
+            candidates.remove(taken);
+        }
+
+        User owner = entityManager.getReference(User.class, userId);
+        List<Card> cards = new ArrayList<>(candidates.size());
+        for (String cardNumber : candidates) {
+            Card card = new Card();
+            card.setCardNumber(cardNumber);
+            card.setOwnerName(ownerName);
+            card.setExpirationDate(expirationDate);
+            card.setBalance(balance);
+            card.setStatus(Status.ACTIVE);
+            card.setUser(owner);
+            entityManager.persist(card);
+            cards.add(card);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        CardStatsDelta statsDelta = new CardStatsDelta();
+        List<Long> ids = new ArrayList<>(cards.size());
+        for (Card card : cards) {
+            cardNumberRegistry.add(card.getCardNumber());
+            ids.add(card.getId());
+            statsDelta.cardAdded(Status.ACTIVE, balance, expirationDate);
+        }
+        cardStatsService.record(statsDelta);
+        return ids;
+    }
+
+    // Пока ничего не зафиксировано, ошибка отдаётся как 409; иначе клиент должен узнать, сколько карт уже выпущено
+    private CardIssueResultDto fail(CardIssueResultDto result, RuntimeException e) {
+        if (result.getIssued() == 0) {
+            throw e;
+        }
+        result.setError(e.getMessage());
+        return result;
+    }
+}
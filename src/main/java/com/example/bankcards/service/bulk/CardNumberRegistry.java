@@ -0,0 +1,80 @@
+package com.example.bankcards.service.bulk;
+
+import com.example.bankcards.util.BloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Фильтр занятых номеров карт в памяти. Строится при старте из cards.card_number и пополняется
+ * при создании карт в этом экземпляре. Отрицательный ответ фильтра значит, что номер свободен
+ * на момент построения; номера от других экземпляров отсекает проверка пачки в БД перед вставкой.
+ */
+@Component
+public class CardNumberRegistry {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedNumbers;
+    private final double falsePositiveRate;
+    private volatile BloomFilter filter;
+
+    public CardNumberRegistry(DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${cards.issue.fetch-size:1000}") int fetchSize,
+                              @Value("${cards.issue.expected-numbers:1000000}") long expectedNumbers,
+                              @Value("${cards.issue.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.expectedNumbers = expectedNumbers;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        ensureLoaded();
+    }
+
+    public boolean mightExist(String cardNumber) {
+        return ensureLoaded().mightContain(key(cardNumber));
+    }
+
+    public void add(String cardNumber) {
+        ensureLoaded().put(key(cardNumber));
+    }
+
+    private BloomFilter ensureLoaded() {
+        BloomFilter current = filter;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (filter == null) {
+                BloomFilter loaded = new BloomFilter(expectedNumbers, falsePositiveRate);
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                        "select card_number from cards",
+                        rs -> {
+                            loaded.put(key(rs.getString(1)));
+                        }));
+                filter = loaded;
+            }
+            return filter;
+        }
+    }
+
+    private static long key(String cardNumber) {
+        long key = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            key = key * 31 + cardNumber.charAt(i);
+        }
+        return key;
+    }
+}
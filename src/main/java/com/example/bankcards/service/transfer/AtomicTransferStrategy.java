@@ -0,0 +1,66 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.enums.Status;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+@Component
+@RequiredArgsConstructor
+public class AtomicTransferStrategy implements TransferStrategy {
+
+    private final CardRepository cardRepository;
+    private final TransferValidator transferValidator;
+    private final LedgerService ledgerService;
+
+    @Override
+    public TransferMode mode() {
+        return TransferMode.ATOMIC;
+    }
+
+    @Override
+    public void transfer(TransferRequestDto request, String username) {
+        Long fromId = request.getFromCardId();
+        Long toId = request.getToCardId();
+
+        if (!fromId.equals(toId)) {
+            // Обновляем строки в порядке возрастания id, чтобы встречные переводы не блокировали друг друга
+            boolean applied = fromId < toId
+                    ? debit(request, username) && credit(request, username)
+                    : credit(request, username) && debit(request, username);
+            if (applied) {
+                ledgerService.recordTransfer(fromId, toId, request.getAmount(), true);
+                return;
+            }
+        }
+
+        // Условный UPDATE не прошёл: перечитываем карты, чтобы вернуть понятную ошибку.
+        // Исключение откатывает транзакцию вместе с уже применённой половиной перевода.
+        Card fromCard = cardRepository.findById(fromId)
+                .orElseThrow(() -> new CardNotFoundException(fromId));
+        Card toCard = cardRepository.findById(toId)
+                .orElseThrow(() -> new CardNotFoundException(toId));
+
+        transferValidator.validate(fromCard, toCard, request.getAmount(), username);
+        // Проверки проходят, значит баланс или статус успел поменять параллельный перевод:
+        // TransferEngine повторит перевод в новой транзакции, а после исчерпания попыток это 409
+        throw new OptimisticLockingFailureException("Card was modified concurrently, please retry");
+    }
+
+    private boolean debit(TransferRequestDto request, String username) {
+        return cardRepository.debitIfAvailable(
+                request.getFromCardId(), username, request.getAmount(), Status.ACTIVE, LocalDate.now()) == 1;
+    }
+
+    private boolean credit(TransferRequestDto request, String username) {
+        return cardRepository.creditIfActive(
+                request.getToCardId(), username, request.getAmount(), Status.ACTIVE, LocalDate.now()) == 1;
+    }
+}
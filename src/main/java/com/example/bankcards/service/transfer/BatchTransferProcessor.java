@@ -0,0 +1,98 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.BatchTransferResultDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.TransferNotAllowedException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.StripedBalanceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class BatchTransferProcessor {
+
+    private final CardRepository cardRepository;
+    private final TransferValidator transferValidator;
+    private final LedgerService ledgerService;
+    private final StripedBalanceService stripedBalanceService;
+
+    // Вызывается внутри транзакции, открытой TransferEngine
+    public List<BatchTransferResultDto> process(List<TransferRequestDto> requests, String username) {
+        Set<Long> ids = new TreeSet<>();
+        requests.forEach(request -> {
+            ids.add(request.getFromCardId());
+            ids.add(request.getToCardId());
+        });
+
+        // Один запрос на все карты пакета; строки блокируются в порядке id, как в PESSIMISTIC.
+        // Чужие карты не блокируются вовсе, иначе пакет с чужими id держал бы их строки до конца транзакции
+        Map<Long, Card> cards = cardRepository.findOwnedByIdInForUpdate(ids, username).stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+
+        // Неучтённые строки журнала (режим LEDGER) и полосы горячих карт тоже входят в доступный остаток
+        Map<Long, BigDecimal> pending = ledgerService.pendingDeltas(cards.keySet());
+        List<Long> hotIds = cards.values().stream()
+                .filter(card -> card.getStripeCount() > 0)
+                .map(Card::getId)
+                .toList();
+        Map<Long, BigDecimal> stripes = stripedBalanceService.totals(hotIds);
+
+        List<BatchTransferResultDto> results = new ArrayList<>(requests.size());
+        List<TransferRequestDto> applied = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequestDto request = requests.get(i);
+            try {
+                Card fromCard = find(cards, request.getFromCardId());
+                Card toCard = find(cards, request.getToCardId());
+
+                // Проверка идёт по балансам с учётом предыдущих переводов этого же пакета
+                BigDecimal available = fromCard.getBalance()
+                        .add(pending.getOrDefault(fromCard.getId(), BigDecimal.ZERO))
+                        .add(stripes.getOrDefault(fromCard.getId(), BigDecimal.ZERO));
+                transferValidator.validate(fromCard, toCard, request.getAmount(), username, available);
+
+                // Строки карт пакета уже заблокированы, поэтому зачисление идёт в основной баланс и для горячих карт
+                if (fromCard.getStripeCount() > 0) {
+                    BigDecimal fromStripes = stripedBalanceService.debit(fromCard, request.getAmount());
+                    stripes.merge(fromCard.getId(), fromStripes.negate(), BigDecimal::add);
+                } else {
+                    fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
+                }
+                toCard.setBalance(toCard.getBalance().add(request.getAmount()));
+                applied.add(request);
+                results.add(new BatchTransferResultDto(i, request.getFromCardId(), request.getToCardId(), true, null));
+            } catch (CardNotFoundException | TransferNotAllowedException | InsufficientFundsException e) {
+                results.add(new BatchTransferResultDto(i, request.getFromCardId(), request.getToCardId(), false, e.getMessage()));
+            }
+        }
+
+        if (!applied.isEmpty()) {
+            ledgerService.recordTransfers(applied);
+        }
+
+        // Изменённые балансы уходят при flush одним JDBC batch (hibernate.jdbc.batch_size)
+        return results;
+    }
+
+    private Card find(Map<Long, Card> cards, Long id) {
+        Card card = cards.get(id);
+        if (card == null) {
+            throw new CardNotFoundException("Card with id " + id + " not found or does not belong to you");
+        }
+        return card;
+    }
+}
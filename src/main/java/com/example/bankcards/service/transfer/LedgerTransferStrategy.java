@@ -0,0 +1,40 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+@Component
+@RequiredArgsConstructor
+public class LedgerTransferStrategy implements TransferStrategy {
+
+    private final CardRepository cardRepository;
+    private final TransferValidator transferValidator;
+    private final LedgerService ledgerService;
+
+    @Override
+    public TransferMode mode() {
+        return TransferMode.LEDGER;
+    }
+
+    @Override
+    public void transfer(TransferRequestDto request, String username) {
+        // Блокируется только карта-источник, чтобы списания с неё проверяли остаток по очереди.
+        // Карта-получатель не блокируется и не обновляется: зачисление - это только строка журнала.
+        Card fromCard = cardRepository.findByIdForUpdate(request.getFromCardId())
+                .orElseThrow(() -> new CardNotFoundException(request.getFromCardId()));
+        Card toCard = cardRepository.findById(request.getToCardId())
+                .orElseThrow(() -> new CardNotFoundException(request.getToCardId()));
+
+        BigDecimal available = fromCard.getBalance().add(ledgerService.pendingDelta(fromCard.getId()));
+        transferValidator.validate(fromCard, toCard, request.getAmount(), username, available);
+
+        ledgerService.recordTransfer(fromCard.getId(), toCard.getId(), request.getAmount(), false);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class OptimisticTransferStrategy implements TransferStrategy {
+
+    private final CardRepository cardRepository;
+    private final TransferValidator transferValidator;
+    private final LedgerService ledgerService;
+
+    @Override
+    public TransferMode mode() {
+        return TransferMode.OPTIMISTIC;
+    }
+
+    @Override
+    public void transfer(TransferRequestDto request, String username) {
+        Card fromCard = cardRepository.findById(request.getFromCardId())
+                .orElseThrow(() -> new CardNotFoundException(request.getFromCardId()));
+
+        Card toCard = cardRepository.findById(request.getToCardId())
+                .orElseThrow(() -> new CardNotFoundException(request.getToCardId()));
+
+        transferValidator.validate(fromCard, toCard, request.getAmount(), username);
+
+        // Конфликт обнаружится при flush по колонке version, повтор делает TransferEngine
+        fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
+        toCard.setBalance(toCard.getBalance().add(request.getAmount()));
+        ledgerService.recordTransfer(fromCard.getId(), toCard.getId(), request.getAmount(), true);
+    }
+}
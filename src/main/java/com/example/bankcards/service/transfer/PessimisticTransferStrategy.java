@@ -0,0 +1,47 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class PessimisticTransferStrategy implements TransferStrategy {
+
+    private final CardRepository cardRepository;
+    private final TransferValidator transferValidator;
+    private final LedgerService ledgerService;
+
+    @Override
+    public TransferMode mode() {
+        return TransferMode.PESSIMISTIC;
+    }
+
+    @Override
+    public void transfer(TransferRequestDto request, String username) {
+        Long fromId = request.getFromCardId();
+        Long toId = request.getToCardId();
+
+        // Блокируем строки всегда в порядке возрастания id, иначе встречные A→B и B→A дают дедлок
+        Card first = lock(Math.min(fromId, toId));
+        Card second = fromId.equals(toId) ? first : lock(Math.max(fromId, toId));
+
+        Card fromCard = first.getId().equals(fromId) ? first : second;
+        Card toCard = first.getId().equals(fromId) ? second : first;
+
+        transferValidator.validate(fromCard, toCard, request.getAmount(), username);
+
+        fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
+        toCard.setBalance(toCard.getBalance().add(request.getAmount()));
+        ledgerService.recordTransfer(fromId, toId, request.getAmount(), true);
+    }
+
+    private Card lock(Long id) {
+        return cardRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new CardNotFoundException(id));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.StripedBalanceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+// Перевод, в котором участвует горячая карта. Вызывается TransferEngine вместо стратегии режима.
+@Component
+@RequiredArgsConstructor
+public class StripedCardTransfer {
+
+    private final CardRepository cardRepository;
+    private final TransferValidator transferValidator;
+    private final StripedBalanceService stripedBalanceService;
+    private final LedgerService ledgerService;
+
+    public void transfer(TransferRequestDto request, String username) {
+        Long fromId = request.getFromCardId();
+        Long toId = request.getToCardId();
+
+        // Источник блокируется всегда. Получатель блокируется, только если он обычная карта:
+        // зачисление на горячую карту идёт в полосу и строку карты не трогает.
+        // Все блокировки берутся в порядке id карт, как в PESSIMISTIC.
+        Card fromCard;
+        Card toCard;
+        if (fromId <= toId) {
+            fromCard = lockOrThrow(fromId);
+            toCard = fromId.equals(toId) ? fromCard : loadTarget(toId);
+        } else {
+            toCard = loadTarget(toId);
+            fromCard = lockOrThrow(fromId);
+        }
+
+        BigDecimal available = fromCard.getBalance().add(ledgerService.pendingDelta(fromId));
+        if (fromCard.getStripeCount() > 0) {
+            available = available.add(stripedBalanceService.total(fromId));
+        }
+        transferValidator.validate(fromCard, toCard, request.getAmount(), username, available);
+
+        // Полосы тоже обновляем в порядке id карт
+        if (fromId < toId) {
+            debit(fromCard, request.getAmount());
+            credit(toCard, request.getAmount());
+        } else {
+            credit(toCard, request.getAmount());
+            debit(fromCard, request.getAmount());
+        }
+        ledgerService.recordTransfer(fromId, toId, request.getAmount(), true);
+    }
+
+    private void debit(Card card, BigDecimal amount) {
+        if (card.getStripeCount() > 0) {
+            stripedBalanceService.debit(card, amount);
+        } else {
+            card.setBalance(card.getBalance().subtract(amount));
+        }
+    }
+
+    private void credit(Card card, BigDecimal amount) {
+        if (card.getStripeCount() > 0) {
+            stripedBalanceService.credit(card, amount);
+        } else {
+            card.setBalance(card.getBalance().add(amount));
+        }
+    }
+
+    private Card loadTarget(Long id) {
+        int stripeCount = cardRepository.findStripeCount(id)
+                .orElseThrow(() -> new CardNotFoundException(id));
+        if (stripeCount == 0) {
+            return lockOrThrow(id);
+        }
+        return cardRepository.findById(id)
+                .orElseThrow(() -> new CardNotFoundException(id));
+    }
+
+    private Card lockOrThrow(Long id) {
+        return cardRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new CardNotFoundException(id));
+    }
+}
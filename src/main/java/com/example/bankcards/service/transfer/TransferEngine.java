@@ -0,0 +1,172 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.config.ReadYourWritesTracker;
+import com.example.bankcards.dto.BatchTransferResultDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.TransferNotAllowedException;
+import com.example.bankcards.service.CardStatsDelta;
+import com.example.bankcards.service.CardStatsService;
+import com.example.bankcards.service.HotCardRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+@Service
+public class TransferEngine {
+
+    private final Map<TransferMode, TransferStrategy> strategies = new EnumMap<>(TransferMode.class);
+    private final BatchTransferProcessor batchTransferProcessor;
+    private final StripedCardTransfer stripedCardTransfer;
+    private final HotCardRegistry hotCardRegistry;
+    private final CardStatsService cardStatsService;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferMode defaultMode;
+    private final int optimisticMaxAttempts;
+    private final int atomicMaxAttempts;
+    private final int batchMaxSize;
+    private final MeterRegistry meterRegistry;
+
+    public TransferEngine(List<TransferStrategy> strategies,
+                          BatchTransferProcessor batchTransferProcessor,
+                          StripedCardTransfer stripedCardTransfer,
+                          HotCardRegistry hotCardRegistry,
+                          CardStatsService cardStatsService,
+                          ReadYourWritesTracker readYourWritesTracker,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${transfer.mode:PESSIMISTIC}") TransferMode defaultMode,
+                          @Value("${transfer.optimistic.max-attempts:5}") int optimisticMaxAttempts,
+                          @Value("${transfer.atomic.max-attempts:3}") int atomicMaxAttempts,
+                          @Value("${transfer.batch.max-size:5000}") int batchMaxSize) {
+        strategies.forEach(strategy -> this.strategies.put(strategy.mode(), strategy));
+        this.batchTransferProcessor = batchTransferProcessor;
+        this.stripedCardTransfer = stripedCardTransfer;
+        this.hotCardRegistry = hotCardRegistry;
+        this.cardStatsService = cardStatsService;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultMode = defaultMode;
+        this.optimisticMaxAttempts = optimisticMaxAttempts;
+        this.atomicMaxAttempts = atomicMaxAttempts;
+        this.batchMaxSize = batchMaxSize;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public TransferMode getDefaultMode() {
+        return defaultMode;
+    }
+
+    public void transfer(TransferRequestDto request, String username) {
+        transfer(request, username, defaultMode);
+    }
+
+    public void transfer(TransferRequestDto request, String username, TransferMode mode) {
+        execute(mode, () -> {
+            apply(request, username, mode);
+            return null;
+        });
+    }
+
+    // claim выполняется в той же транзакции до перевода; если он вернул false, перевод не выполняется
+    public boolean transfer(TransferRequestDto request, String username, BooleanSupplier claim) {
+        return execute(defaultMode, () -> {
+            if (!claim.getAsBoolean()) {
+                return false;
+            }
+            apply(request, username, defaultMode);
+            return true;
+        });
+    }
+
+    public List<BatchTransferResultDto> transferBatch(List<TransferRequestDto> requests, String username) {
+        if (requests.size() > batchMaxSize) {
+            throw new IllegalArgumentException("Batch size must not exceed " + batchMaxSize);
+        }
+        List<BatchTransferResultDto> results = transactionTemplate.execute(status -> {
+            List<BatchTransferResultDto> processed = batchTransferProcessor.process(requests, username);
+            CardStatsDelta statsDelta = new CardStatsDelta();
+            processed.stream()
+                    .filter(BatchTransferResultDto::isSuccess)
+                    .forEach(result -> statsDelta.transferred(requests.get(result.getIndex()).getAmount()));
+            cardStatsService.record(statsDelta);
+            readYourWritesTracker.markWrite(username);
+            return processed;
+        });
+        results.forEach(result -> countOutcome("batch", result.isSuccess() ? "success" : "rejected"));
+        return results;
+    }
+
+    private void apply(TransferRequestDto request, String username, TransferMode mode) {
+        // Переводы с участием горячих карт идут через полосы независимо от режима
+        if (hotCardRegistry.isHot(request.getFromCardId()) || hotCardRegistry.isHot(request.getToCardId())) {
+            stripedCardTransfer.transfer(request, username);
+        } else {
+            strategies.get(mode).transfer(request, username);
+        }
+        // Учитывается после коммита, поэтому откатившиеся попытки OPTIMISTIC в статистику не попадают
+        cardStatsService.record(new CardStatsDelta().transferred(request.getAmount()));
+        // Следующие чтения пользователя идут с primary, пока реплики не догонят перевод
+        readYourWritesTracker.markWrite(username);
+    }
+
+    private <T> T execute(TransferMode mode, Supplier<T> work) {
+        String modeTag = mode.name().toLowerCase();
+        try {
+            T result = executeWithRetries(mode, work);
+            countOutcome(modeTag, Boolean.FALSE.equals(result) ? "replayed" : "success");
+            return result;
+        } catch (InsufficientFundsException e) {
+            countOutcome(modeTag, "insufficient_funds");
+            throw e;
+        } catch (TransferNotAllowedException | CardNotFoundException e) {
+            countOutcome(modeTag, "not_allowed");
+            throw e;
+        } catch (OptimisticLockingFailureException e) {
+            countOutcome(modeTag, "optimistic_failure");
+            throw e;
+        } catch (PessimisticLockingFailureException e) {
+            countOutcome(modeTag, "lock_failure");
+            throw e;
+        } catch (RuntimeException e) {
+            countOutcome(modeTag, "error");
+            throw e;
+        }
+    }
+
+    private <T> T executeWithRetries(TransferMode mode, Supplier<T> work) {
+        int maxAttempts = switch (mode) {
+            case OPTIMISTIC -> optimisticMaxAttempts;
+            case ATOMIC -> atomicMaxAttempts;
+            default -> 1;
+        };
+
+        // Каждая попытка идёт в своей транзакции: после конфликта версий старую уже не спасти
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                meterRegistry.counter("card.transfers.retries", "mode", mode.name().toLowerCase()).increment();
+            }
+        }
+    }
+
+    private void countOutcome(String mode, String outcome) {
+        meterRegistry.counter("card.transfers", "mode", mode, "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.service.transfer;
+
+public enum TransferMode {
+    PESSIMISTIC,
+    OPTIMISTIC,
+    ATOMIC,
+    LEDGER
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.TransferRequestDto;
+
+public interface TransferStrategy {
+
+    TransferMode mode();
+
+    // Вызывается внутри транзакции, открытой TransferEngine
+    void transfer(TransferRequestDto request, String username);
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.enums.Status;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.TransferNotAllowedException;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Component
+public class TransferValidator {
+
+    public void validate(Card fromCard, Card toCard, BigDecimal amount, String username) {
+        validate(fromCard, toCard, amount, username, fromCard.getBalance());
+    }
+
+    public void validate(Card fromCard, Card toCard, BigDecimal amount, String username, BigDecimal available) {
+        // 1. Проверяем принадлежность карт
+        if (!fromCard.getUser().getUsername().equals(username)) {
+            throw new TransferNotAllowedException("Source card does not belong to you");
+        }
+
+        if (!toCard.getUser().getUsername().equals(username)) {
+            throw new TransferNotAllowedException("Target card does not belong to you");
+        }
+
+        // 2. Проверяем что это не перевод на ту же карту
+        if (fromCard.getId().equals(toCard.getId())) {
+            throw new TransferNotAllowedException("Cannot transfer to the same card");
+        }
+
+        // 3. Проверяем статус карт
+        if (fromCard.getStatus() != Status.ACTIVE) {
+            throw new TransferNotAllowedException("Source card is not active. Current status: " + fromCard.getStatus());
+        }
+
+        if (toCard.getStatus() != Status.ACTIVE) {
+            throw new TransferNotAllowedException("Target card is not active. Current status: " + toCard.getStatus());
+        }
+
+        // Статус EXPIRED проставляет фоновая задача, до неё карта с прошедшим сроком ещё может быть ACTIVE
+        LocalDate today = LocalDate.now();
+        if (fromCard.getExpirationDate().isBefore(today)) {
+            throw new TransferNotAllowedException("Source card expired on " + fromCard.getExpirationDate());
+        }
+
+        if (toCard.getExpirationDate().isBefore(today)) {
+            throw new TransferNotAllowedException("Target card expired on " + toCard.getExpirationDate());
+        }
+
+        // 4. Проверяем достаточность средств
+        if (available.compareTo(amount) < 0) {
+            throw new InsufficientFundsException(
+                    String.format("Insufficient funds on card %s. Available: %s, Required: %s",
+                            fromCard.getId(), available, amount)
+            );
+        }
+
+        // 5. Проверяем положительную сумму перевода
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new TransferNotAllowedException("Transfer amount must be positive");
+        }
+    }
+}
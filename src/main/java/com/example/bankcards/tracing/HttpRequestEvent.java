@@ -0,0 +1,26 @@
+package com.example.bankcards.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.bankcards.HttpRequest")
+@Label("HTTP Request")
+@Category({"Bank Cards", "Web"})
+@StackTrace(false)
+public class HttpRequestEvent extends Event {
+
+    @Label("Request Id")
+    public String requestId;
+
+    @Label("Method")
+    public String method;
+
+    @Label("URI")
+    public String uri;
+
+    @Label("Status")
+    public int status;
+}
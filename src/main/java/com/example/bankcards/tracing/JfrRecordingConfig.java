@@ -0,0 +1,63 @@
+package com.example.bankcards.tracing;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Recording;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+
+/**
+ * Постоянная запись JFR внутри процесса: только события дольше порога, с ограничением по возрасту.
+ * Снять её с работающего узла: {@code jcmd <pid> JFR.dump name=bankcards filename=bankcards.jfr}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracing.jfr.enabled", havingValue = "true")
+public class JfrRecordingConfig {
+
+    static final String RECORDING_NAME = "bankcards";
+
+    private final Duration threshold;
+    private final Duration sqlThreshold;
+    private final Duration lockThreshold;
+    private final Duration maxAge;
+    private Recording recording;
+
+    public JfrRecordingConfig(@Value("${tracing.jfr.threshold:20ms}") Duration threshold,
+                              @Value("${tracing.jfr.sql-threshold:10ms}") Duration sqlThreshold,
+                              @Value("${tracing.jfr.lock-threshold:10ms}") Duration lockThreshold,
+                              @Value("${tracing.jfr.max-age:1h}") Duration maxAge) {
+        this.threshold = threshold;
+        this.sqlThreshold = sqlThreshold;
+        this.lockThreshold = lockThreshold;
+        this.maxAge = maxAge;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        recording = new Recording();
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+
+        recording.enable(HttpRequestEvent.class).withThreshold(threshold);
+        recording.enable(JwtFilterEvent.class).withThreshold(threshold);
+        recording.enable(ServiceMethodEvent.class).withThreshold(threshold);
+        recording.enable(SqlStatementEvent.class).withThreshold(sqlThreshold);
+        // Ожидание блокировок строк в Postgres видно как долгое чтение сокета, мониторы и park - как блокировки в JVM
+        recording.enable("jdk.SocketRead").withThreshold(lockThreshold).withStackTrace();
+        recording.enable("jdk.JavaMonitorEnter").withThreshold(lockThreshold).withStackTrace();
+        recording.enable("jdk.ThreadPark").withThreshold(lockThreshold).withStackTrace();
+        recording.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.bankcards.JwtFilter")
+@Label("JWT Authentication")
+@Category({"Bank Cards", "Security"})
+@StackTrace(false)
+public class JwtFilterEvent extends Event {
+
+    @Label("Request Id")
+    public String requestId;
+
+    @Label("Authenticated")
+    public boolean authenticated;
+}
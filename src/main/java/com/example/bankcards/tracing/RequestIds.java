@@ -0,0 +1,17 @@
+package com.example.bankcards.tracing;
+
+import org.slf4j.MDC;
+
+// Id текущего запроса лежит в MDC: его видят и JFR-события, и логи
+public final class RequestIds {
+
+    public static final String HEADER = "X-Request-Id";
+    static final String MDC_KEY = "requestId";
+
+    private RequestIds() {
+    }
+
+    public static String current() {
+        return MDC.get(MDC_KEY);
+    }
+}
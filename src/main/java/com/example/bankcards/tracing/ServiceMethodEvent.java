@@ -0,0 +1,26 @@
+package com.example.bankcards.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.bankcards.ServiceMethod")
+@Label("Service Method")
+@Category({"Bank Cards", "Service"})
+@StackTrace(false)
+public class ServiceMethodEvent extends Event {
+
+    @Label("Request Id")
+    public String requestId;
+
+    @Label("Service")
+    public String service;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Exception")
+    public String exception;
+}
@@ -0,0 +1,23 @@
+package com.example.bankcards.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.bankcards.SqlStatement")
+@Label("SQL Statement")
+@Category({"Bank Cards", "Database"})
+@StackTrace(false)
+public class SqlStatementEvent extends Event {
+
+    @Label("Request Id")
+    public String requestId;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Batch")
+    public boolean batch;
+}
@@ -0,0 +1,75 @@
+package com.example.bankcards.tracing;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Хуки Hibernate для JFR-событий SQL. Hibernate создаёт их сам по имени класса из application.yml:
+ * инспектор запоминает текст запроса при подготовке, слушатель сессии замеряет его выполнение.
+ */
+public final class SqlTracing {
+
+    private static final int MAX_SQL_LENGTH = 2000;
+    private static final ThreadLocal<String> LAST_SQL = new ThreadLocal<>();
+
+    private SqlTracing() {
+    }
+
+    public static class Inspector implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            LAST_SQL.set(sql);
+            return sql;
+        }
+    }
+
+    // Экземпляр живёт в одной сессии Hibernate, а сессия используется одним потоком
+    public static class SessionListener implements org.hibernate.SessionEventListener {
+
+        private SqlStatementEvent event;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            begin(false);
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            commit();
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            begin(true);
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            commit();
+        }
+
+        private void begin(boolean batch) {
+            SqlStatementEvent current = new SqlStatementEvent();
+            if (current.isEnabled()) {
+                current.batch = batch;
+                current.begin();
+                event = current;
+            }
+        }
+
+        private void commit() {
+            SqlStatementEvent current = event;
+            event = null;
+            if (current == null) {
+                return;
+            }
+            current.end();
+            if (current.shouldCommit()) {
+                String sql = LAST_SQL.get();
+                current.requestId = RequestIds.current();
+                current.sql = sql != null && sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) : sql;
+                current.commit();
+            }
+        }
+    }
+}
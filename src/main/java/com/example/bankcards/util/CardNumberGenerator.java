@@ -0,0 +1,56 @@
+package com.example.bankcards.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Случайные 16-значные номера с корректной контрольной цифрой Луна внутри диапазона BIN
+@Component
+public class CardNumberGenerator {
+
+    private static final int CARD_NUMBER_LENGTH = 16;
+
+    private final long binFrom;
+    private final long binTo;
+    private final int binLength;
+    private final long accountBound;
+
+    public CardNumberGenerator(@Value("${cards.issue.bin-from:400000}") String binFrom,
+                               @Value("${cards.issue.bin-to:400099}") String binTo) {
+        if (binFrom.length() != binTo.length() || binFrom.length() >= CARD_NUMBER_LENGTH - 1) {
+            throw new IllegalArgumentException("BIN range bounds must have the same length, less than 15 digits");
+        }
+        this.binFrom = Long.parseLong(binFrom);
+        this.binTo = Long.parseLong(binTo);
+        if (this.binFrom > this.binTo) {
+            throw new IllegalArgumentException("BIN range is empty: " + binFrom + "-" + binTo);
+        }
+        this.binLength = binFrom.length();
+        this.accountBound = (long) Math.pow(10, CARD_NUMBER_LENGTH - 1 - binLength);
+    }
+
+    public String generate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long bin = random.nextLong(binFrom, binTo + 1);
+        long account = random.nextLong(accountBound);
+        String payload = String.format("%0" + binLength + "d%0" + (CARD_NUMBER_LENGTH - 1 - binLength) + "d", bin, account);
+        return payload + checkDigit(payload);
+    }
+
+    private static int checkDigit(String payload) {
+        int sum = 0;
+        // Удваивается каждая вторая цифра справа, начиная с последней цифры без контрольной
+        for (int i = payload.length() - 1, position = 0; i >= 0; i--, position++) {
+            int digit = payload.charAt(i) - '0';
+            if (position % 2 == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.bankcards;
+
+import com.example.bankcards.config.JwtService;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Пользователи и карты для интеграционных тестов: пишутся прямо в БД, токен выдаётся без логина
+public class CardFixtures {
+
+    private static final AtomicLong CARD_NUMBERS = new AtomicLong(7_000_000_000_000_000L);
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JwtService jwtService;
+
+    public CardFixtures(JdbcTemplate jdbcTemplate, JwtService jwtService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jwtService = jwtService;
+    }
+
+    public String user(String prefix) {
+        return insertUser(prefix, "ROLE_USER");
+    }
+
+    public String admin(String prefix) {
+        return insertUser(prefix, "ROLE_ADMIN");
+    }
+
+    public Long userId(String username) {
+        return jdbcTemplate.queryForObject("select id from users where username = ?", Long.class, username);
+    }
+
+    public String token(String username) {
+        String role = jdbcTemplate.queryForObject("select role from users where username = ?", String.class, username);
+        return "Bearer " + jwtService.generateToken(username, role, userId(username));
+    }
+
+    public Long card(String username, String balance) {
+        return card(username, balance, LocalDate.now().plusYears(3), "ACTIVE");
+    }
+
+    public Long card(String username, String balance, LocalDate expirationDate, String status) {
+        String cardNumber = Long.toString(CARD_NUMBERS.incrementAndGet());
+        jdbcTemplate.update("insert into cards (card_number, owner_name, expiration_date, status, balance, user_id) " +
+                        "values (?, ?, ?, ?, ?, ?)",
+                cardNumber, username, expirationDate, status, new BigDecimal(balance), userId(username));
+        return jdbcTemplate.queryForObject("select id from cards where card_number = ?", Long.class, cardNumber);
+    }
+
+    public BigDecimal balance(Long cardId) {
+        return jdbcTemplate.queryForObject("select balance from cards where id = ?", BigDecimal.class, cardId);
+    }
+
+    private String insertUser(String prefix, String role) {
+        String username = prefix + "-" + USERS.incrementAndGet();
+        jdbcTemplate.update("insert into users (username, password, role) values (?, ?, ?)",
+                username, "not-used", role);
+        return username;
+    }
+}
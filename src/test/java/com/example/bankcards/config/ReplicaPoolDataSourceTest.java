@@ -0,0 +1,74 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.net.ConnectException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaPoolDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReplicaPoolDataSource replicaPool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        replicaPool = new ReplicaPoolDataSource(primary,
+                List.of(new ReplicaPoolDataSource.Replica("replica-1", replica)),
+                new ReadYourWritesTracker(true, Duration.ofSeconds(5), 100), meterRegistry);
+    }
+
+    @Test
+    void poolTimeoutFallsBackToPrimaryAndKeepsReplicaHealthy() throws SQLException {
+        when(replica.getConnection())
+                .thenThrow(new SQLTransientConnectionException("replica-1 - Connection is not available, request timed out after 2000ms."))
+                .thenReturn(replicaConnection);
+
+        assertThat(replicaPool.getConnection()).isSameAs(primaryConnection);
+        assertThat(healthy()).isOne();
+        assertThat(replicaPool.getConnection()).isSameAs(replicaConnection);
+        verify(replica, times(2)).getConnection();
+    }
+
+    @Test
+    void connectionFailureMarksReplicaUnhealthy() throws SQLException {
+        when(replica.getConnection()).thenThrow(new SQLTransientConnectionException(
+                "replica-1 - Connection is not available, request timed out after 2000ms.", "08001",
+                new ConnectException("Connection refused")));
+
+        assertThat(replicaPool.getConnection()).isSameAs(primaryConnection);
+        assertThat(healthy()).isZero();
+        assertThat(replicaPool.getConnection()).isSameAs(primaryConnection);
+        verify(replica, times(1)).getConnection();
+    }
+
+    @Test
+    void explicitCredentialsAreNotSupported() {
+        assertThatThrownBy(() -> replicaPool.getConnection("user", "password"))
+                .isInstanceOf(SQLFeatureNotSupportedException.class);
+    }
+
+    private double healthy() {
+        return meterRegistry.get("datasource.replica.healthy").tag("replica", "replica-1").gauge().value();
+    }
+}
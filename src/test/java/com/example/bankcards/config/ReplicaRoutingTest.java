@@ -0,0 +1,98 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.CardFixtures;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.service.transfer.TransferEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Реплика - та же база H2 под другим пользователем: по current_user видно, откуда взято соединение
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-routing;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;LOCK_TIMEOUT=10000;INIT=CREATE USER IF NOT EXISTS replica PASSWORD 'replica' ADMIN",
+        "replica-routing.enabled=true",
+        "replica-routing.replicas[0].url=jdbc:h2:mem:replica-routing;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;LOCK_TIMEOUT=10000",
+        "replica-routing.replicas[0].username=replica",
+        "replica-routing.replicas[0].password=replica"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        double replicaReads = reads("replica-1");
+
+        assertThat(currentUser(true)).isEqualToIgnoringCase("replica");
+        assertThat(currentUser(false)).isEqualToIgnoringCase("sa");
+        // Фоновые задачи тоже читают с реплики, поэтому счётчик только сверяется на рост
+        assertThat(reads("replica-1")).isGreaterThan(replicaReads);
+    }
+
+    @Test
+    void userReadsFromPrimaryWithinReadYourWritesWindow() {
+        CardFixtures fixtures = new CardFixtures(jdbcTemplate, jwtService);
+        String writer = fixtures.user("routing-writer");
+        String reader = fixtures.user("routing-reader");
+        TransferRequestDto request = new TransferRequestDto();
+        request.setFromCardId(fixtures.card(writer, "100.00"));
+        request.setToCardId(fixtures.card(writer, "100.00"));
+        request.setAmount(new BigDecimal("10.00"));
+        transferEngine.transfer(request, writer);
+        double pinnedReads = reads("primary-pinned");
+
+        authenticate(writer);
+        assertThat(currentUser(true)).isEqualToIgnoringCase("sa");
+        assertThat(reads("primary-pinned")).isEqualTo(pinnedReads + 1);
+
+        authenticate(reader);
+        assertThat(currentUser(true)).isEqualToIgnoringCase("replica");
+    }
+
+    private String currentUser(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject("select current_user", String.class));
+    }
+
+    private void authenticate(String username) {
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private double reads(String target) {
+        return meterRegistry.get("datasource.routing.reads").tag("target", target).counter().count();
+    }
+}
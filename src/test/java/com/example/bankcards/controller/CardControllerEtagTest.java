@@ -0,0 +1,185 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.CardFixtures;
+import com.example.bankcards.config.JwtService;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.service.CardExpirationService;
+import com.example.bankcards.service.transfer.TransferEngine;
+import com.example.bankcards.service.transfer.TransferMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CardControllerEtagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @Autowired
+    private CardExpirationService cardExpirationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private CardFixtures fixtures;
+    private String username;
+    private String token;
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate, jwtService);
+        username = fixtures.user("etag");
+        token = fixtures.token(username);
+        adminToken = fixtures.token(fixtures.admin("etag-admin"));
+    }
+
+    @Test
+    void unchangedCardAnswersNotModifiedWithoutBody() throws Exception {
+        Long cardId = fixtures.card(username, "100.00");
+
+        for (String path : new String[]{"/api/cards/" + cardId, "/api/cards/my"}) {
+            String etag = etag(path);
+            // Сильный ETag: без префикса W/
+            assertThat(etag).matches("\"[0-9a-f]{32}\"");
+
+            MvcResult notModified = mockMvc.perform(get(path)
+                            .header(HttpHeaders.AUTHORIZATION, token)
+                            .header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andReturn();
+            assertThat(notModified.getResponse().getContentLength()).isZero();
+            assertThat(notModified.getResponse().getContentAsString()).isEmpty();
+            assertThat(notModified.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = TransferMode.class, names = {"PESSIMISTIC", "OPTIMISTIC", "ATOMIC"})
+    void transferChangesEtag(TransferMode mode) throws Exception {
+        Long fromCardId = fixtures.card(username, "100.00");
+        Long toCardId = fixtures.card(username, "100.00");
+        String fromEtag = etag("/api/cards/" + fromCardId);
+        String toEtag = etag("/api/cards/" + toCardId);
+        String listEtag = etag("/api/cards/my");
+
+        transferEngine.transfer(transfer(fromCardId, toCardId), username, mode);
+
+        assertModified("/api/cards/" + fromCardId, fromEtag);
+        assertModified("/api/cards/" + toCardId, toEtag);
+        assertModified("/api/cards/my", listEtag);
+    }
+
+    // Зачисление на горячую карту идёт в полосу и не меняет cards.version
+    @ParameterizedTest
+    @EnumSource(value = TransferMode.class, names = {"PESSIMISTIC", "OPTIMISTIC", "ATOMIC"})
+    void stripedCreditChangesEtag(TransferMode mode) throws Exception {
+        Long fromCardId = fixtures.card(username, "100.00");
+        Long hotCardId = fixtures.card(username, "100.00");
+        mockMvc.perform(patch("/api/cards/{id}/hot", hotCardId)
+                        .header(HttpHeaders.AUTHORIZATION, adminToken)
+                        .param("stripes", "4"))
+                .andExpect(status().isOk());
+        String hotEtag = etag("/api/cards/" + hotCardId);
+        String listEtag = etag("/api/cards/my");
+        Long version = version(hotCardId);
+
+        transferEngine.transfer(transfer(fromCardId, hotCardId), username, mode);
+
+        assertThat(version(hotCardId)).isEqualTo(version);
+        assertModified("/api/cards/" + hotCardId, hotEtag);
+        assertModified("/api/cards/my", listEtag);
+    }
+
+    @Test
+    void blockAndActivateChangeEtag() throws Exception {
+        Long cardId = fixtures.card(username, "100.00");
+        String path = "/api/cards/" + cardId;
+
+        String active = etag(path);
+        mockMvc.perform(patch("/api/cards/{id}/block", cardId).header(HttpHeaders.AUTHORIZATION, adminToken))
+                .andExpect(status().isOk());
+        String blocked = assertModified(path, active);
+
+        mockMvc.perform(patch("/api/cards/{id}/activate", cardId).header(HttpHeaders.AUTHORIZATION, adminToken))
+                .andExpect(status().isOk());
+        assertModified(path, blocked);
+    }
+
+    @Test
+    void expirationChangesEtag() throws Exception {
+        Long cardId = fixtures.card(username, "100.00", LocalDate.now().minusDays(1), "ACTIVE");
+        String path = "/api/cards/" + cardId;
+        String etag = etag(path);
+        String listEtag = etag("/api/cards/my");
+
+        jdbcTemplate.update("delete from job_checkpoints");
+        cardExpirationService.expireCards();
+
+        assertThat(jdbcTemplate.queryForObject("select status from cards where id = ?", String.class, cardId))
+                .isEqualTo("EXPIRED");
+        assertModified(path, etag);
+        assertModified("/api/cards/my", listEtag);
+    }
+
+    private String etag(String path) throws Exception {
+        return mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    // Старый ETag больше не совпадает: ответ 200 с телом и новым ETag, который снова даёт 304
+    private String assertModified(String path, String oldEtag) throws Exception {
+        MvcResult result = mockMvc.perform(get(path)
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_NONE_MATCH, oldEtag))
+                .andExpect(status().isOk())
+                .andReturn();
+        String newEtag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newEtag).isNotEqualTo(oldEtag);
+        assertThat(result.getResponse().getContentAsString()).isNotEmpty();
+        mockMvc.perform(get(path)
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_NONE_MATCH, newEtag))
+                .andExpect(status().isNotModified());
+        return newEtag;
+    }
+
+    private TransferRequestDto transfer(Long fromCardId, Long toCardId) {
+        TransferRequestDto request = new TransferRequestDto();
+        request.setFromCardId(fromCardId);
+        request.setToCardId(toCardId);
+        request.setAmount(new BigDecimal("10.00"));
+        return request;
+    }
+
+    private Long version(Long cardId) {
+        return jdbcTemplate.queryForObject("select version from cards where id = ?", Long.class, cardId);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.CardFixtures;
+import com.example.bankcards.config.JwtService;
+import com.example.bankcards.dto.CardEventDto;
+import com.example.bankcards.service.CardEventPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Подписок, которые не читают, больше, чем потоков отправки; отключать их можно только по send-timeout
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "cards.events.dispatch-threads=2",
+        "cards.events.buffer-size=100000",
+        "cards.events.send-timeout=2s",
+        "cards.events.send-check-interval=200ms"
+})
+@ActiveProfiles("test")
+class CardControllerEventsTest {
+
+    private static final int STALLED = 3;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CardEventPublisher cardEventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private final List<Socket> sockets = new ArrayList<>();
+
+    @AfterEach
+    void closeSockets() throws IOException {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    @Test
+    void stalledSubscribersDoNotDelayOthersAndAreDropped() throws Exception {
+        CardFixtures fixtures = new CardFixtures(jdbcTemplate, jwtService);
+        double dropped = meterRegistry.get("cards.events.dropped").counter().count();
+
+        List<Long> stalledUsers = new ArrayList<>();
+        for (int i = 0; i < STALLED; i++) {
+            String username = fixtures.user("events-stalled");
+            stalledUsers.add(fixtures.userId(username));
+            openStalledStream(fixtures.token(username));
+        }
+        String reader = fixtures.user("events-reader");
+        Long readerId = fixtures.userId(reader);
+        int readerEvents = 20;
+        CountDownLatch received = new CountDownLatch(readerEvents);
+        HttpResponse<Stream<String>> stream = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/cards/my/events"))
+                        .header("Authorization", fixtures.token(reader))
+                        .build(),
+                HttpResponse.BodyHandlers.ofLines());
+        assertThat(stream.statusCode()).isEqualTo(200);
+        List<String> eventNames = new CopyOnWriteArrayList<>();
+        CompletableFuture.runAsync(() -> stream.body().forEach(line -> {
+            if (line.startsWith("event:")) {
+                eventNames.add(line);
+            } else if (line.startsWith("data:")) {
+                received.countDown();
+            }
+        }));
+        await(() -> stalledUsers.stream().allMatch(cardEventPublisher::hasSubscribers)
+                && cardEventPublisher.hasSubscribers(readerId));
+
+        // Забиваем сокеты молчащих клиентов, чтобы запись в них упёрлась в неготовый сокет
+        for (Long userId : stalledUsers) {
+            for (int i = 0; i < 50; i++) {
+                cardEventPublisher.publish(userId, () -> events(100));
+            }
+        }
+        cardEventPublisher.publish(readerId, () -> events(readerEvents));
+
+        assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(eventNames).hasSize(readerEvents).containsOnly("event:deleted");
+        await(() -> stalledUsers.stream().noneMatch(cardEventPublisher::hasSubscribers));
+        assertThat(meterRegistry.get("cards.events.dropped").counter().count()).isGreaterThanOrEqualTo(dropped + STALLED);
+        assertThat(cardEventPublisher.hasSubscribers(readerId)).isTrue();
+    }
+
+    // Маленький приёмный буфер и ни одного чтения: данные копятся в буферах сервера
+    private void openStalledStream(String token) throws IOException {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(1024);
+        socket.connect(new InetSocketAddress("localhost", port));
+        sockets.add(socket);
+        OutputStream output = socket.getOutputStream();
+        output.write(("GET /api/cards/my/events HTTP/1.1\r\n"
+                + "Host: localhost:" + port + "\r\n"
+                + "Authorization: " + token + "\r\n"
+                + "Accept: text/event-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        output.flush();
+    }
+
+    private static List<CardEventDto> events(int count) {
+        List<CardEventDto> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(new CardEventDto(CardEventDto.Type.DELETED, (long) i, null, Instant.now()));
+        }
+        return events;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in 15s").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    // Небольшой буфер отправки сокета, чтобы неготовность к записи наступала быстро
+    @TestConfiguration
+    static class SmallSocketBuffers {
+
+        @Bean
+        WebServerFactoryCustomizer<TomcatServletWebServerFactory> smallSendBuffer() {
+            return factory -> factory.addConnectorCustomizers(connector -> connector.setProperty("socket.txBufSize", "4096"));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.CardFixtures;
+import com.example.bankcards.config.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CardControllerIdempotencyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private CardFixtures fixtures;
+    private String token;
+    private Long fromCardId;
+    private Long toCardId;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate, jwtService);
+        String username = fixtures.user("idempotency");
+        token = fixtures.token(username);
+        fromCardId = fixtures.card(username, "1000.00");
+        toCardId = fixtures.card(username, "1000.00");
+    }
+
+    @Test
+    void firstCallAppliesTransfer() throws Exception {
+        transfer("key-1", "100.00")
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "false"));
+
+        assertThat(fixtures.balance(fromCardId)).isEqualByComparingTo("900.00");
+        assertThat(fixtures.balance(toCardId)).isEqualByComparingTo("1100.00");
+    }
+
+    @Test
+    void replayWithSameBodyDoesNotMoveMoneyAgain() throws Exception {
+        transfer("key-2", "100.00").andExpect(status().isOk());
+
+        transfer("key-2", "100.00")
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+
+        assertThat(fixtures.balance(fromCardId)).isEqualByComparingTo("900.00");
+        assertThat(fixtures.balance(toCardId)).isEqualByComparingTo("1100.00");
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() throws Exception {
+        transfer("key-3", "100.00").andExpect(status().isOk());
+
+        transfer("key-3", "250.00").andExpect(status().isUnprocessableEntity());
+
+        assertThat(fixtures.balance(fromCardId)).isEqualByComparingTo("900.00");
+        assertThat(fixtures.balance(toCardId)).isEqualByComparingTo("1100.00");
+    }
+
+    @Test
+    void concurrentCallsWithSameKeyMoveMoneyOnce() throws Exception {
+        int clients = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<String> replayed = new ArrayList<>();
+        try {
+            List<Callable<MvcResult>> calls = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                calls.add(() -> {
+                    start.await();
+                    return transfer("key-4", "100.00").andReturn();
+                });
+            }
+            List<Future<MvcResult>> results = calls.stream().map(executor::submit).toList();
+            start.countDown();
+            for (Future<MvcResult> result : results) {
+                MvcResult response = result.get(30, TimeUnit.SECONDS);
+                assertThat(response.getResponse().getStatus()).isEqualTo(200);
+                replayed.add(response.getResponse().getHeader("Idempotent-Replayed"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(replayed).containsOnlyOnce("false");
+        assertThat(fixtures.balance(fromCardId)).isEqualByComparingTo("900.00");
+        assertThat(fixtures.balance(toCardId)).isEqualByComparingTo("1100.00");
+    }
+
+    private ResultActions transfer(String idempotencyKey, String amount) throws Exception {
+        return mockMvc.perform(post("/api/cards/transfer")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .header("Idempotency-Key", idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"fromCardId\":" + fromCardId + ",\"toCardId\":" + toCardId + ",\"amount\":" + amount + "}"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.CardFixtures;
+import com.example.bankcards.config.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Диапазон BIN на 10 номеров: 14 цифр BIN, одна цифра счёта и контрольная
+@SpringBootTest(properties = {
+        "cards.issue.bin-from=55555555555555",
+        "cards.issue.bin-to=55555555555555",
+        "cards.issue.batch-size=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CardControllerIssueTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Test
+    void exhaustedBinRangeReturnsSummaryOrConflict() throws Exception {
+        CardFixtures fixtures = new CardFixtures(jdbcTemplate, jwtService);
+        String token = fixtures.token(fixtures.admin("issue-admin"));
+        Long userId = fixtures.userId(fixtures.user("issue"));
+
+        issue(token, userId, 7)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.issued").value(7))
+                .andExpect(jsonPath("$.error").doesNotExist());
+
+        // Свободно три номера: первая пачка из двух выпускается, вторая упирается в диапазон
+        issue(token, userId, 5)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.issued").value(2))
+                .andExpect(jsonPath("$.error").value("Card number BIN range is exhausted"));
+
+        // Свободен один номер, а пачке нужно два: не выпущено ничего
+        issue(token, userId, 2)
+                .andExpect(status().isConflict())
+                .andExpect(content().string("Card number BIN range is exhausted"));
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from cards where user_id = ?", Long.class, userId))
+                .isEqualTo(9L);
+    }
+
+    private ResultActions issue(String token, Long userId, int count) throws Exception {
+        return mockMvc.perform(post("/api/cards/admin/issue")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\":" + userId + ",\"ownerName\":\"Issue Test\",\"count\":" + count + "}"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.CardFixtures;
+import com.example.bankcards.config.JwtService;
+import com.example.bankcards.service.LedgerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "transfer.mode=LEDGER")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CardControllerLedgerEtagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    // Зачисление LEDGER - только несведённая строка журнала: cards.version получателя не меняется до проводки
+    @Test
+    void unsettledCreditAndSettlementChangeEtag() throws Exception {
+        CardFixtures fixtures = new CardFixtures(jdbcTemplate, jwtService);
+        String username = fixtures.user("ledger-etag");
+        String token = fixtures.token(username);
+        Long fromCardId = fixtures.card(username, "100.00");
+        Long toCardId = fixtures.card(username, "100.00");
+        String path = "/api/cards/" + toCardId;
+        String etag = etag(path, token);
+        Long version = version(toCardId);
+
+        mockMvc.perform(post("/api/cards/transfer")
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fromCardId\":" + fromCardId + ",\"toCardId\":" + toCardId + ",\"amount\":10.00}"))
+                .andExpect(status().isOk());
+
+        assertThat(version(toCardId)).isEqualTo(version);
+        MvcResult pending = mockMvc.perform(get(path)
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(110.0))
+                .andReturn();
+        String pendingEtag = pending.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(pendingEtag).isNotEqualTo(etag);
+        mockMvc.perform(get(path)
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_NONE_MATCH, pendingEtag))
+                .andExpect(status().isNotModified());
+
+        ledgerService.settlePending();
+
+        String settledEtag = etag(path, token);
+        assertThat(settledEtag).isNotEqualTo(pendingEtag).isNotEqualTo(etag);
+    }
+
+    private String etag(String path, String token) throws Exception {
+        return mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private Long version(Long cardId) {
+        return jdbcTemplate.queryForObject("select version from cards where id = ?", Long.class, cardId);
+    }
+}
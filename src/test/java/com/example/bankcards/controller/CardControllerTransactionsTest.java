@@ -0,0 +1,124 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.CardFixtures;
+import com.example.bankcards.config.JwtService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CardControllerTransactionsTest {
+
+    // Граница месячных секций журнала в Postgres
+    private static final Instant MONTH_START = Instant.parse("2026-05-01T00:00:00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private String token;
+    private Long cardId;
+
+    @BeforeEach
+    void setUp() {
+        CardFixtures fixtures = new CardFixtures(jdbcTemplate, jwtService);
+        String username = fixtures.user("history");
+        token = fixtures.token(username);
+        cardId = fixtures.card(username, "1000.00");
+    }
+
+    @Test
+    void cursorPagesCrossMonthBoundaryWithoutGapsOrDuplicates() throws Exception {
+        insertTransaction(MONTH_START.minus(32, ChronoUnit.DAYS));
+        List<Long> expected = new ArrayList<>();
+        // Пары строк с одинаковым created_at по обе стороны границы: порядок внутри пары задаёт id
+        expected.add(insertTransaction(MONTH_START.minus(2, ChronoUnit.MINUTES)));
+        expected.add(insertTransaction(MONTH_START.minus(1, ChronoUnit.MINUTES)));
+        expected.add(insertTransaction(MONTH_START.minus(1, ChronoUnit.MINUTES)));
+        expected.add(insertTransaction(MONTH_START));
+        expected.add(insertTransaction(MONTH_START));
+        expected.add(insertTransaction(MONTH_START.plus(1, ChronoUnit.MINUTES)));
+        insertTransaction(MONTH_START.plus(1, ChronoUnit.DAYS));
+        // Новые первыми, при равном created_at - больший id первым
+        List<Long> newestFirst = List.of(expected.get(5), expected.get(4), expected.get(3),
+                expected.get(2), expected.get(1), expected.get(0));
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/cards/{id}/transactions", cardId)
+                    .header(HttpHeaders.AUTHORIZATION, token)
+                    .param("from", MONTH_START.minus(1, ChronoUnit.DAYS).toString())
+                    .param("to", MONTH_START.plus(1, ChronoUnit.HOURS).toString())
+                    .param("size", "2");
+            if (cursor != null) {
+                request.param("after", cursor);
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("content").forEach(row -> seen.add(row.get("id").asLong()));
+            cursor = page.get("hasNext").asBoolean() ? page.get("nextCursor").asText() : null;
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertThat(seen).containsExactlyElementsOf(newestFirst);
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void requestWithoutRangeReadsDefaultRangeOnly() throws Exception {
+        Long recent = insertTransaction(Instant.now().minus(1, ChronoUnit.DAYS));
+        insertTransaction(Instant.now().minus(400, ChronoUnit.DAYS));
+
+        JsonNode page = objectMapper.readTree(mockMvc.perform(get("/api/cards/{id}/transactions", cardId)
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        assertThat(page.get("content")).hasSize(1);
+        assertThat(page.get("content").get(0).get("id").asLong()).isEqualTo(recent);
+        assertThat(page.get("hasNext").asBoolean()).isFalse();
+    }
+
+    private Long insertTransaction(Instant createdAt) {
+        UUID transferId = UUID.randomUUID();
+        jdbcTemplate.update("insert into card_transactions (transfer_id, card_id, amount, settled, created_at) " +
+                        "values (?, ?, ?, true, ?)",
+                transferId, cardId, new BigDecimal("10.00"), OffsetDateTime.ofInstant(createdAt, ZoneOffset.UTC));
+        return jdbcTemplate.queryForObject("select id from card_transactions where transfer_id = ?", Long.class, transferId);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.CardFixtures;
+import com.example.bankcards.config.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Маленькие порции и три потока, чтобы несколько карт давали несколько сегментов и порций
+@SpringBootTest(properties = {
+        "cards.expiration.chunk-size=2",
+        "cards.expiration.threads=3"
+})
+@ActiveProfiles("test")
+class CardExpirationServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private CardExpirationService cardExpirationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CardFixtures fixtures;
+    private String username;
+
+    @BeforeEach
+    void setUp() {
+        // Каждый тест - новый запуск за сегодня, а не продолжение предыдущего
+        jdbcTemplate.update("delete from job_checkpoints");
+        fixtures = new CardFixtures(jdbcTemplate, jwtService);
+        username = fixtures.user("expiration");
+    }
+
+    @Test
+    void expiresOnlyPastDueCardsAcrossSegments() {
+        List<Long> expired = new ArrayList<>();
+        List<Long> valid = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            expired.add(fixtures.card(username, "10.00", TODAY.minusDays(1 + i), "ACTIVE"));
+            valid.add(fixtures.card(username, "10.00", i % 2 == 0 ? TODAY : TODAY.plusYears(1), "ACTIVE"));
+        }
+        Long blockedExpired = fixtures.card(username, "10.00", TODAY.minusMonths(1), "BLOCKED");
+
+        cardExpirationService.expireCards();
+
+        for (Long id : expired) {
+            assertThat(status(id)).isEqualTo("EXPIRED");
+            assertThat(version(id)).isOne();
+        }
+        assertThat(status(blockedExpired)).isEqualTo("EXPIRED");
+        for (Long id : valid) {
+            assertThat(status(id)).isEqualTo("ACTIVE");
+            assertThat(version(id)).isZero();
+        }
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from job_checkpoints where run_date = ?", Integer.class, Date.valueOf(TODAY)))
+                .isGreaterThan(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from job_checkpoints where next_id < end_id", Integer.class)).isZero();
+    }
+
+    @Test
+    void interruptedRunResumesFromCheckpoint() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ids.add(fixtures.card(username, "10.00", TODAY.minusDays(1), "ACTIVE"));
+        }
+        Long resumeFrom = ids.get(3);
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from cards", Long.class);
+        // Прерванный сегодняшний запуск: сегмент 0 дошёл до resumeFrom, сегмент 1 завершён
+        jdbcTemplate.update("insert into job_checkpoints (job_name, segment, run_date, next_id, end_id, updated_at) " +
+                "values ('card-expiration', 0, ?, ?, ?, current_timestamp)", Date.valueOf(TODAY), resumeFrom, maxId + 1);
+        jdbcTemplate.update("insert into job_checkpoints (job_name, segment, run_date, next_id, end_id, updated_at) " +
+                "values ('card-expiration', 1, ?, 0, 0, current_timestamp)", Date.valueOf(TODAY));
+
+        cardExpirationService.expireCards();
+
+        // Карты до чекпоинта считаются уже обработанными и повторно не читаются
+        assertThat(ids.subList(0, 3)).allMatch(id -> status(id).equals("ACTIVE"));
+        assertThat(ids.subList(3, 6)).allMatch(id -> status(id).equals("EXPIRED"));
+        assertThat(jdbcTemplate.queryForObject(
+                "select next_id from job_checkpoints where segment = 0", Long.class)).isEqualTo(maxId + 1);
+    }
+
+    @Test
+    void cardLockedByTransferIsExpiredInSameRun() throws Exception {
+        Long locked = fixtures.card(username, "10.00", TODAY.minusDays(1), "ACTIVE");
+        Long next = fixtures.card(username, "10.00", TODAY.minusDays(1), "ACTIVE");
+
+        CountDownLatch lockTaken = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> transfer = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    jdbcTemplate.queryForObject("select id from cards where id = ? for update", Long.class, locked);
+                    lockTaken.countDown();
+                    try {
+                        release.await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertThat(lockTaken.await(30, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Void> run = CompletableFuture.runAsync(cardExpirationService::expireCards);
+        // Запуск ждёт окончания перевода, а не завершается с пропущенной картой
+        Thread.sleep(500);
+        assertThat(run).isNotDone();
+        release.countDown();
+        transfer.get(30, TimeUnit.SECONDS);
+        run.get(30, TimeUnit.SECONDS);
+
+        assertThat(status(locked)).isEqualTo("EXPIRED");
+        assertThat(status(next)).isEqualTo("EXPIRED");
+    }
+
+    private String status(Long cardId) {
+        return jdbcTemplate.queryForObject("select status from cards where id = ?", String.class, cardId);
+    }
+
+    private Long version(Long cardId) {
+        return jdbcTemplate.queryForObject("select version from cards where id = ?", Long.class, cardId);
+    }
+}
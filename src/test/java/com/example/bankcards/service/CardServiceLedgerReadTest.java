@@ -0,0 +1,90 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.CardFixtures;
+import com.example.bankcards.config.JwtService;
+import com.example.bankcards.dto.CardResponseDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.enums.Role;
+import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.service.transfer.TransferEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(properties = "transfer.mode=LEDGER")
+@ActiveProfiles("test")
+class CardServiceLedgerReadTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @MockitoSpyBean
+    private LedgerService ledgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    // Проводка журнала успевает закоммититься между чтением cards.balance и чтением несведённых сумм:
+    // оба чтения должны видеть один и тот же снимок
+    @Test
+    void cardListReadsBalancesAndPendingRowsFromOneSnapshot() throws Exception {
+        CardFixtures fixtures = new CardFixtures(jdbcTemplate, jwtService);
+        String username = fixtures.user("ledger-read");
+        Long fromCardId = fixtures.card(username, "1000.00");
+        Long toCardId = fixtures.card(username, "1000.00");
+        TransferRequestDto request = new TransferRequestDto();
+        request.setFromCardId(fromCardId);
+        request.setToCardId(toCardId);
+        request.setAmount(new BigDecimal("100.00"));
+        transferEngine.transfer(request, username);
+
+        AtomicBoolean settleBeforePendingRead = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (settleBeforePendingRead.getAndSet(false)) {
+                CompletableFuture.runAsync(ledgerService::settlePending).get(30, TimeUnit.SECONDS);
+            }
+            return invocation.callRealMethod();
+        }).when(ledgerService).pendingDeltas(anyCollection());
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(username, fixtures.userId(username), Role.ROLE_USER), null, List.of(Role.ROLE_USER)));
+        Map<Long, BigDecimal> balances = cardService.getUserCards(PageRequest.of(0, 10)).stream()
+                .collect(Collectors.toMap(CardResponseDto::getId, CardResponseDto::getBalance));
+
+        assertThat(settleBeforePendingRead).isFalse();
+        assertThat(fixtures.balance(fromCardId)).isEqualByComparingTo("900.00");
+        assertThat(balances.get(fromCardId)).isEqualByComparingTo("900.00");
+        assertThat(balances.get(toCardId)).isEqualByComparingTo("1100.00");
+    }
+}
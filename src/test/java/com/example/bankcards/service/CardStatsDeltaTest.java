@@ -0,0 +1,58 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.enums.Status;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardStatsDeltaTest {
+
+    private static final LocalDate EXPIRES = LocalDate.of(2027, 5, 1);
+
+    @Test
+    void addedAndRemovedCardCancelOut() {
+        CardStatsDelta delta = new CardStatsDelta()
+                .cardAdded(Status.ACTIVE, new BigDecimal("10.25"), EXPIRES)
+                .cardRemoved(Status.ACTIVE, new BigDecimal("10.25"), EXPIRES);
+
+        assertThat(delta.values()).allSatisfy((key, value) -> assertThat(value).isZero());
+    }
+
+    @Test
+    void balanceIsKeptInCents() {
+        CardStatsDelta delta = new CardStatsDelta()
+                .cardAdded(Status.ACTIVE, new BigDecimal("10.25"), EXPIRES)
+                .cardAdded(Status.BLOCKED, new BigDecimal("0.005"), EXPIRES);
+
+        assertThat(delta.values())
+                .containsEntry(CardStatsService.BALANCE_CENTS, 1026L)
+                .containsEntry(CardStatsService.cardsKey(Status.ACTIVE), 1L)
+                .containsEntry(CardStatsService.cardsKey(Status.BLOCKED), 1L)
+                .containsEntry(CardStatsService.expiringKey(EXPIRES), 2L);
+    }
+
+    @Test
+    void statusChangeMovesOneCardBetweenStatuses() {
+        CardStatsDelta delta = new CardStatsDelta().statusChanged(Status.ACTIVE, Status.BLOCKED);
+
+        assertThat(delta.values())
+                .containsEntry(CardStatsService.cardsKey(Status.ACTIVE), -1L)
+                .containsEntry(CardStatsService.cardsKey(Status.BLOCKED), 1L);
+        assertThat(new CardStatsDelta().statusChanged(Status.ACTIVE, Status.ACTIVE).isEmpty()).isTrue();
+    }
+
+    @Test
+    void transfersAreCountedWithAmount() {
+        CardStatsDelta delta = new CardStatsDelta()
+                .transferred(new BigDecimal("1.50"))
+                .transferred(new BigDecimal("2"));
+
+        assertThat(delta.values())
+                .containsEntry(CardStatsService.TRANSFERS_COUNT, 2L)
+                .containsEntry(CardStatsService.TRANSFERS_CENTS, 350L)
+                .hasSize(2);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.bankcards.service.bulk;
+
+import com.example.bankcards.CardFixtures;
+import com.example.bankcards.config.JwtService;
+import com.example.bankcards.dto.CardImportResultDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CardImportServiceTest {
+
+    private static final AtomicLong CARD_NUMBERS = new AtomicLong(6_000_000_000_000_000L);
+
+    @Autowired
+    private CardImportService cardImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Value("${cards.import.batch-size}")
+    private int batchSize;
+
+    private CardFixtures fixtures;
+    private String username;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate, jwtService);
+        username = fixtures.user("import");
+        userId = fixtures.userId(username);
+    }
+
+    @Test
+    void validCsvFileImportsEveryRow() throws IOException {
+        String first = nextCardNumber();
+        String second = nextCardNumber();
+        String csv = "card_number,owner_name,expiration_date,initial_balance,user_id\n"
+                + first + ",\"Doe, John\",2030-01-31,100.50," + userId + "\n"
+                + second + ",Jane Doe,2031-06-30,20," + userId + "\n";
+
+        List<CardImportResultDto> results = importCards(BulkFormat.CSV, csv);
+
+        assertThat(results).extracting(CardImportResultDto::getLine).containsExactly(1L, 2L);
+        assertThat(results).allMatch(CardImportResultDto::isSuccess);
+        Map<String, Object> card = jdbcTemplate.queryForMap(
+                "select id, owner_name, balance, status, user_id from cards where card_number = ?", first);
+        assertThat(card.get("id")).isEqualTo(results.get(0).getCardId());
+        assertThat(card.get("owner_name")).isEqualTo("Doe, John");
+        assertThat((BigDecimal) card.get("balance")).isEqualByComparingTo("100.50");
+        assertThat(card.get("status")).isEqualTo("ACTIVE");
+        assertThat(card.get("user_id")).isEqualTo(userId);
+        assertThat(cardCount(second)).isOne();
+    }
+
+    @Test
+    void invalidRowsAreReportedPerLineAndValidRowsStillImport() throws IOException {
+        String valid = nextCardNumber();
+        String ndjson = row(valid, "100.00", userId) + "\n"
+                + row("12345", "100.00", userId) + "\n"
+                + row(nextCardNumber(), "-5", userId) + "\n"
+                + "{not json\n"
+                + "\n"
+                + row(nextCardNumber(), "100.00", Long.MAX_VALUE) + "\n";
+
+        List<CardImportResultDto> results = importCards(BulkFormat.NDJSON, ndjson);
+
+        assertThat(results).extracting(CardImportResultDto::getLine).containsExactly(1L, 2L, 3L, 4L, 6L);
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(1).getError()).isEqualTo("Card number must be 16 digits");
+        assertThat(results.get(2).getError()).isEqualTo("Balance must be positive");
+        assertThat(results.get(3).getError()).isEqualTo("Malformed row");
+        assertThat(results.get(4).getError()).isEqualTo("User not found");
+        assertThat(results.subList(1, 5)).noneMatch(CardImportResultDto::isSuccess)
+                .allMatch(result -> result.getCardId() == null);
+        assertThat(cardCount(valid)).isOne();
+    }
+
+    @Test
+    void duplicateCardNumberWithinBatchIsImportedOnce() throws IOException {
+        String duplicate = nextCardNumber();
+        String ndjson = row(duplicate, "100.00", userId) + "\n"
+                + row(duplicate, "200.00", userId) + "\n";
+
+        List<CardImportResultDto> results = importCards(BulkFormat.NDJSON, ndjson);
+
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(1).isSuccess()).isFalse();
+        assertThat(results.get(1).getError()).isEqualTo("Card number already exists");
+        assertThat(cardCount(duplicate)).isOne();
+
+        // Повторный импорт того же номера отклоняется по уже существующей строке
+        List<CardImportResultDto> again = importCards(BulkFormat.NDJSON, row(duplicate, "100.00", userId) + "\n");
+        assertThat(again.get(0).getError()).isEqualTo("Card number already exists");
+    }
+
+    @Test
+    void rowsAcrossSeveralBatchesGetDistinctIncreasingPooledIds() throws IOException {
+        int rows = batchSize * 2 + 1;
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            ndjson.append(row(nextCardNumber(), "10.00", userId)).append('\n');
+        }
+
+        List<CardImportResultDto> results = importCards(BulkFormat.NDJSON, ndjson.toString());
+
+        assertThat(results).hasSize(rows).allMatch(CardImportResultDto::isSuccess);
+        List<Long> ids = results.stream().map(CardImportResultDto::getCardId).toList();
+        assertThat(ids).doesNotHaveDuplicates().isSorted();
+
+        // Карта, вставленная мимо Hibernate, берёт id из той же последовательности и не попадает в выданные пулы
+        Long outsideCardId = fixtures.card(username, "1.00");
+        assertThat(ids).doesNotContain(outsideCardId);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from cards where user_id = ?", Long.class, userId))
+                .isEqualTo(rows + 1L);
+    }
+
+    private List<CardImportResultDto> importCards(BulkFormat format, String input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        cardImportService.importCards(format, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+        List<CardImportResultDto> results = new ArrayList<>();
+        objectMapper.readerFor(CardImportResultDto.class).readValues(output.toByteArray())
+                .forEachRemaining(result -> results.add((CardImportResultDto) result));
+        return results;
+    }
+
+    private String row(String cardNumber, String balance, Long ownerId) {
+        return "{\"cardNumber\":\"" + cardNumber + "\",\"ownerName\":\"Import Test\",\"expirationDate\":\"2030-12-31\","
+                + "\"initialBalance\":" + balance + ",\"userId\":" + ownerId + "}";
+    }
+
+    private String nextCardNumber() {
+        return Long.toString(CARD_NUMBERS.incrementAndGet());
+    }
+
+    private long cardCount(String cardNumber) {
+        return jdbcTemplate.queryForObject("select count(*) from cards where card_number = ?", Long.class, cardNumber);
+    }
+}
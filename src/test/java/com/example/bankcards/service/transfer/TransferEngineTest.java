@@ -0,0 +1,209 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.BatchTransferResultDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.HotCardRegistry;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.StripedBalanceService;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransferEngineTest {
+
+    private static final int CARDS = 4;
+    private static final int THREADS = 4;
+    private static final int TRANSFERS_PER_THREAD = 40;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+    private static final AtomicLong CARD_NUMBERS = new AtomicLong(8_000_000_000_000_000L);
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private HotCardRegistry hotCardRegistry;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @ParameterizedTest
+    @EnumSource(TransferMode.class)
+    void concurrentTransfersConserveTotalBalance(TransferMode mode) throws Exception {
+        String username = newUser(mode);
+        List<Long> cardIds = seedCards(username);
+
+        runConcurrentTransfers(username, cardIds, mode);
+
+        assertConserved(cardIds);
+    }
+
+    @ParameterizedTest
+    @EnumSource(TransferMode.class)
+    void concurrentTransfersWithHotCardConserveTotalBalance(TransferMode mode) throws Exception {
+        String username = newUser(mode);
+        List<Long> cardIds = seedCards(username);
+        makeHot(cardIds.get(0), 4);
+
+        runConcurrentTransfers(username, cardIds, mode);
+
+        assertConserved(cardIds);
+        makeHot(cardIds.get(0), 0);
+        assertConserved(cardIds);
+    }
+
+    @ParameterizedTest
+    @EnumSource(TransferMode.class)
+    void batchTransferConservesTotalBalance(TransferMode mode) {
+        String username = newUser(mode);
+        List<Long> cardIds = seedCards(username);
+
+        List<TransferRequestDto> requests = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            requests.add(randomTransfer(cardIds));
+        }
+        List<BatchTransferResultDto> results = transferEngine.transferBatch(requests, username);
+
+        assertThat(results).hasSize(requests.size());
+        assertThat(results).anyMatch(BatchTransferResultDto::isSuccess);
+        assertConserved(cardIds);
+    }
+
+    private void runConcurrentTransfers(String username, List<Long> cardIds, TransferMode mode) throws Exception {
+        AtomicInteger applied = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> clients = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                clients.add(() -> {
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        try {
+                            transferEngine.transfer(randomTransfer(cardIds), username, mode);
+                            applied.incrementAndGet();
+                        } catch (InsufficientFundsException | OptimisticLockingFailureException e) {
+                            // Отказ откатывает перевод целиком и на сумму не влияет
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> client : executor.invokeAll(clients)) {
+                client.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        assertThat(applied.get()).isPositive();
+    }
+
+    // Сумма по картам с полосами и журналом не меняется, ни один доступный остаток не уходит в минус,
+    // а после проводки журнала LEDGER всё оказывается в cards.balance
+    private void assertConserved(List<Long> cardIds) {
+        BigDecimal expected = INITIAL_BALANCE.multiply(BigDecimal.valueOf(cardIds.size()));
+        assertThat(total(cardIds)).isEqualByComparingTo(expected);
+        for (Long cardId : cardIds) {
+            assertThat(available(cardId)).isGreaterThanOrEqualTo(BigDecimal.ZERO);
+        }
+
+        ledgerService.settlePending();
+        assertThat(total(cardIds)).isEqualByComparingTo(expected);
+        assertThat(namedJdbcTemplate.queryForObject(
+                "select count(*) from card_transactions where settled = false and card_id in (:ids)",
+                new MapSqlParameterSource("ids", cardIds), Long.class)).isZero();
+    }
+
+    private BigDecimal total(List<Long> cardIds) {
+        return namedJdbcTemplate.queryForObject(
+                "select (select coalesce(sum(balance), 0) from cards where id in (:ids)) " +
+                "+ (select coalesce(sum(balance), 0) from card_balance_stripes where card_id in (:ids)) " +
+                "+ (select coalesce(sum(amount), 0) from card_transactions where settled = false and card_id in (:ids))",
+                new MapSqlParameterSource("ids", cardIds), BigDecimal.class);
+    }
+
+    private BigDecimal available(Long cardId) {
+        return total(List.of(cardId));
+    }
+
+    private TransferRequestDto randomTransfer(List<Long> cardIds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(cardIds.size());
+        int to = (from + 1 + random.nextInt(cardIds.size() - 1)) % cardIds.size();
+        TransferRequestDto request = new TransferRequestDto();
+        request.setFromCardId(cardIds.get(from));
+        request.setToCardId(cardIds.get(to));
+        request.setAmount(BigDecimal.valueOf(random.nextInt(1, 40000), 2));
+        return request;
+    }
+
+    // Так же, как CardServiceImpl.setHotStripes
+    private void makeHot(Long cardId, int stripes) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Card card = cardRepository.findByIdForUpdate(cardId).orElseThrow();
+            stripedBalanceService.restripe(card, stripes);
+            cardRepository.save(card);
+        });
+        hotCardRegistry.update(cardId, stripes > 0);
+    }
+
+    private String newUser(TransferMode mode) {
+        String username = "transfer-" + mode.name().toLowerCase() + "-" + USERS.incrementAndGet();
+        jdbcTemplate.update("insert into users (username, password, role) values (?, ?, ?)",
+                username, "not-used", "ROLE_USER");
+        return username;
+    }
+
+    private List<Long> seedCards(String username) {
+        Long userId = jdbcTemplate.queryForObject("select id from users where username = ?", Long.class, username);
+        for (int i = 0; i < CARDS; i++) {
+            jdbcTemplate.update("insert into cards (card_number, owner_name, expiration_date, status, balance, user_id) " +
+                            "values (?, ?, ?, ?, ?, ?)",
+                    Long.toString(CARD_NUMBERS.incrementAndGet()), username, LocalDate.now().plusYears(3),
+                    "ACTIVE", INITIAL_BALANCE, userId);
+        }
+        return jdbcTemplate.queryForList("select id from cards where user_id = ? order by id", Long.class, userId);
+    }
+}
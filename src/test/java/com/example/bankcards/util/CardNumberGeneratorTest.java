@@ -0,0 +1,60 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CardNumberGeneratorTest {
+
+    @Test
+    void generatesLuhnValidNumbersInsideBinRange() {
+        CardNumberGenerator generator = new CardNumberGenerator("400000", "400099");
+        for (int i = 0; i < 10_000; i++) {
+            String number = generator.generate();
+            assertThat(number).hasSize(16).containsOnlyDigits();
+            assertThat(Integer.parseInt(number.substring(0, 6))).isBetween(400000, 400099);
+            assertThat(luhnValid(number)).as(number).isTrue();
+        }
+    }
+
+    @Test
+    void keepsLeadingZerosOfBin() {
+        CardNumberGenerator generator = new CardNumberGenerator("0001", "0001");
+        String number = generator.generate();
+        assertThat(number).startsWith("0001").hasSize(16);
+        assertThat(luhnValid(number)).isTrue();
+    }
+
+    @Test
+    void rejectsInvalidBinRange() {
+        assertThatThrownBy(() -> new CardNumberGenerator("400099", "400000"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CardNumberGenerator("4000", "400000"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CardNumberGenerator("400000000000000", "400000000000000"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void luhnCheckMatchesKnownNumbers() {
+        assertThat(luhnValid("4111111111111111")).isTrue();
+        assertThat(luhnValid("4111111111111112")).isFalse();
+        assertThat(luhnValid("5555555555554444")).isTrue();
+    }
+
+    // Проверка полным номером, независимая от расчёта контрольной цифры в генераторе
+    private static boolean luhnValid(String number) {
+        int sum = 0;
+        boolean doubled = false;
+        for (int i = number.length() - 1; i >= 0; i--) {
+            int digit = number.charAt(i) - '0';
+            if (doubled) {
+                digit = digit * 2 > 9 ? digit * 2 - 9 : digit * 2;
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return sum % 10 == 0;
+    }
+}
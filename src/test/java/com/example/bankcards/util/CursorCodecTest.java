@@ -0,0 +1,102 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.dto.CursorPageDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorCodecTest {
+
+    private static final Map<String, Function<String, Object>> KEYS =
+            Map.of("expirationDate", LocalDate::parse, "id", Long::valueOf);
+
+    private final CursorCodec codec = new CursorCodec();
+
+    @Test
+    void nextCursorDecodesToPositionOfLastRow() {
+        Window<String> window = Window.from(List.of("a", "b"), index -> position(LocalDate.of(2027, 1, index + 1), 10L + index), true);
+
+        CursorPageDto<String> page = codec.toPage(window);
+
+        assertThat(page.isHasNext()).isTrue();
+        KeysetScrollPosition decoded = (KeysetScrollPosition) codec.decode(page.getNextCursor(), KEYS);
+        assertThat(decoded.getKeys()).containsEntry("expirationDate", LocalDate.of(2027, 1, 2)).containsEntry("id", 11L);
+        assertThat(decoded.scrollsForward()).isTrue();
+    }
+
+    @Test
+    void roundTripsValuesThatNeedEscaping() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("name", "a&b=c d");
+        keys.put("balance", new BigDecimal("-12.50"));
+        Window<String> window = Window.from(List.of("x"), index -> ScrollPosition.forward(keys), true);
+
+        String cursor = codec.toPage(window).getNextCursor();
+        KeysetScrollPosition decoded = (KeysetScrollPosition) codec.decode(cursor,
+                Map.of("name", value -> value, "balance", BigDecimal::new));
+
+        assertThat(decoded.getKeys()).containsEntry("name", "a&b=c d").containsEntry("balance", new BigDecimal("-12.50"));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        Window<String> window = Window.from(List.of("a"), index -> position(LocalDate.of(2027, 1, 1), 1L), false);
+        assertThat(codec.toPage(window).getNextCursor()).isNull();
+    }
+
+    @Test
+    void missingCursorStartsFromTheBeginning() {
+        assertThat(codec.decode(null, KEYS)).isEqualTo(ScrollPosition.keyset());
+        assertThat(codec.decode(" ", KEYS)).isEqualTo(ScrollPosition.keyset());
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThatThrownBy(() -> codec.decode("%%%", KEYS))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        String badValue = encode("expirationDate=not-a-date&id=1");
+        assertThatThrownBy(() -> codec.decode(badValue, KEYS))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void rejectsCursorFromAnotherSorting() {
+        String idOnly = encode("id=5");
+        assertThatThrownBy(() -> codec.decode(idOnly, KEYS))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor does not match requested sorting");
+    }
+
+    @Test
+    void limitsPageSize() {
+        assertThat(codec.limit(CursorCodec.MAX_PAGE_SIZE).max()).isEqualTo(CursorCodec.MAX_PAGE_SIZE);
+        assertThatThrownBy(() -> codec.limit(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.limit(CursorCodec.MAX_PAGE_SIZE + 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ScrollPosition position(LocalDate expirationDate, Long id) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("expirationDate", expirationDate);
+        keys.put("id", id);
+        return ScrollPosition.forward(keys);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}